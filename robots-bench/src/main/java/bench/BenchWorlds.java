@@ -0,0 +1,75 @@
+package bench;
+
+import game.mechanic.MovementHandler;
+import game.model.GameObject;
+import game.model.ObjectProperty;
+import game.model.formula.FormulaElementFactory;
+
+import java.util.Random;
+
+/**
+ * Построение тестовых миров для бенчмарков.
+ */
+final class BenchWorlds {
+    private BenchWorlds() {
+    }
+
+    /**
+     * Places a player at (0, 0) and a row of pushable boxes right after it.
+     */
+    static GameObject[] addPushRow(MovementHandler handler, int chainLength) {
+        GameObject[] row = new GameObject[chainLength + 1];
+        GameObject player = new GameObject(0, 0, null, "Player", "player");
+        player.addProperty(ObjectProperty.PLAYER);
+        handler.addGameObject(player);
+        row[0] = player;
+
+        for (int i = 1; i <= chainLength; i++) {
+            GameObject box = new GameObject(i, 0, null, "Box", "box");
+            box.addProperty(ObjectProperty.PUSHABLE);
+            handler.addGameObject(box);
+            row[i] = box;
+        }
+        return row;
+    }
+
+    /**
+     * Fills the grid below the first two rows with walls at random cells.
+     */
+    static void addWalls(MovementHandler handler, int gridSize, int count) {
+        Random random = new Random(42);
+        for (int i = 0; i < count; i++) {
+            int x = random.nextInt(gridSize);
+            int y = 2 + random.nextInt(gridSize - 2);
+            GameObject wall = new GameObject(x, y, null, "Wall", "wall");
+            wall.addProperty(ObjectProperty.STOP);
+            handler.addGameObject(wall);
+        }
+    }
+
+    /**
+     * Lays out "TYPEn IS STOP" formulas row by row, with one free cell between them,
+     * and one object of every mentioned type. Returns the number of text tiles placed.
+     */
+    static int addFormulas(MovementHandler handler, int gridSize, int textTiles) {
+        int perRow = gridSize / 4;
+        int formulas = textTiles / 3;
+        int placed = 0;
+        for (int i = 0; i < formulas; i++) {
+            int x = (i % perRow) * 4;
+            int y = 2 + (i / perRow) * 2;
+            if (y >= gridSize) {
+                break;
+            }
+            String type = "type" + (i % 64);
+            handler.addGameObject(FormulaElementFactory.createNoun(x, y, type));
+            handler.addGameObject(FormulaElementFactory.createVerb(x + 1, y));
+            handler.addGameObject(FormulaElementFactory.createProperty(x + 2, y, ObjectProperty.STOP));
+            placed += 3;
+        }
+        for (int i = 0; i < 64; i++) {
+            handler.addGameObject(new GameObject(i % gridSize, 1, null, "Type" + i, "type" + i));
+        }
+        return placed;
+    }
+}
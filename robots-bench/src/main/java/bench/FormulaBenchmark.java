@@ -0,0 +1,69 @@
+package bench;
+
+import game.engine.GridDimensions;
+import game.mechanic.FormulaHandler;
+import game.mechanic.MovementHandler;
+import game.model.GameObject;
+import game.model.formula.FormulaElement;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пересчёт формул после того, как одна плитка текста сдвинулась и разорвала/восстановила правило.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormulaBenchmark {
+    @Param({"64", "256"})
+    int gridSize;
+
+    @Param({"300", "3000"})
+    int textTiles;
+
+    @Param({"0", "20000"})
+    int objectCount;
+
+    private MovementHandler handler;
+    private FormulaHandler formulaHandler;
+    private FormulaElement noun;
+    private int nounX;
+    private int nounY;
+    private boolean broken;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        handler = new MovementHandler(GridDimensions.of(gridSize, gridSize));
+        BenchWorlds.addFormulas(handler, gridSize, textTiles);
+        BenchWorlds.addWalls(handler, gridSize, objectCount);
+        formulaHandler = handler.getFormulaHandler();
+        formulaHandler.processFormulas();
+
+        for (GameObject obj : handler.getGameObjects()) {
+            if (obj instanceof FormulaElement
+                    && ((FormulaElement) obj).getElementType() == FormulaElement.ElementType.NOUN) {
+                noun = (FormulaElement) obj;
+                break;
+            }
+        }
+        nounX = noun.getX();
+        nounY = noun.getY();
+    }
+
+    @Benchmark
+    public boolean moveOneTile() {
+        broken = !broken;
+        noun.setPosition(nounX, broken ? nounY + 1 : nounY);
+        return formulaHandler.processFormulas();
+    }
+
+    @Benchmark
+    public boolean fullRebuild() {
+        formulaHandler.invalidate();
+        return formulaHandler.processFormulas();
+    }
+}
@@ -0,0 +1,35 @@
+package bench;
+
+import game.engine.GridDimensions;
+import game.factory.GameObjectFactory;
+import game.mechanic.MovementHandler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Создание стартового уровня (очистка мира, объекты, формулы, первый проход правил).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InitializeGameBenchmark {
+    @Param({"20", "512"})
+    int gridSize;
+
+    private MovementHandler handler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        handler = new MovementHandler(GridDimensions.of(gridSize, gridSize));
+    }
+
+    @Benchmark
+    public MovementHandler initializeGame() {
+        GameObjectFactory.initializeGame(handler);
+        return handler;
+    }
+}
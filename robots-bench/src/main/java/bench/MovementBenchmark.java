@@ -0,0 +1,56 @@
+package bench;
+
+import game.engine.GridDimensions;
+import game.mechanic.MovementHandler;
+import game.model.GameObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Один шаг игрока, толкающего цепочку ящиков, в мире с большим числом посторонних объектов.
+ * Запуск с -prof gc показывает выделение памяти на ход.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MovementBenchmark {
+    @Param({"64", "512"})
+    int gridSize;
+
+    @Param({"1000", "50000"})
+    int objectCount;
+
+    @Param({"4", "32"})
+    int chainLength;
+
+    private MovementHandler handler;
+    private GameObject[] row;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        handler = new MovementHandler(GridDimensions.of(gridSize, gridSize));
+        row = BenchWorlds.addPushRow(handler, chainLength);
+        BenchWorlds.addWalls(handler, gridSize, objectCount);
+    }
+
+    @Benchmark
+    public boolean pushChain() {
+        boolean moved = handler.movePlayers(1, 0);
+
+        // Put the player and the chain back (part of the measured cost, O(chain) like the push)
+        for (int i = 0; i < row.length; i++) {
+            row[i].setPosition(i, 0);
+        }
+        return moved;
+    }
+
+    @Benchmark
+    public boolean blockedStep() {
+        // Moving up from row 0 leaves the grid: measures the cheapest rejected move
+        return handler.movePlayers(0, -1);
+    }
+}
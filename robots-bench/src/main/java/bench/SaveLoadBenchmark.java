@@ -0,0 +1,65 @@
+package bench;
+
+import game.engine.GridDimensions;
+import game.mechanic.MovementHandler;
+import game.model.GameObject;
+import game.model.GameState;
+import gui.system.saving.GameLoader;
+import gui.system.saving.GameSaver;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Сохранение мира в файл и чтение обратно. Сохранения пишутся во временный user.home.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaveLoadBenchmark {
+    @Param({"64", "512"})
+    int gridSize;
+
+    @Param({"100", "10000"})
+    int objectCount;
+
+    private List<GameObject> objects;
+    private Path home;
+    private String originalHome;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        originalHome = System.getProperty("user.home");
+        home = Files.createTempDirectory("robots-bench");
+        System.setProperty("user.home", home.toString());
+
+        MovementHandler handler = new MovementHandler(GridDimensions.of(gridSize, gridSize));
+        BenchWorlds.addPushRow(handler, 8);
+        BenchWorlds.addWalls(handler, gridSize, objectCount);
+        objects = handler.getGameObjects();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.setProperty("user.home", originalHome);
+        try (Stream<Path> files = Files.walk(home)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public GameState saveAndLoad() throws IOException, ClassNotFoundException {
+        String savePath = GameSaver.saveGameState(objects, "bench");
+        return GameLoader.readGameState(Paths.get(savePath));
+    }
+}
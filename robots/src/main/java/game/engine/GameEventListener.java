@@ -0,0 +1,24 @@
+package game.engine;
+
+/**
+ * Подписчик на события игрового движка.
+ * Звук, диалоги и прочий UI подписываются на движок, а не вызываются им напрямую,
+ * поэтому симуляция может работать без дисплея и звуковой карты.
+ */
+public interface GameEventListener {
+    /** Хотя бы один игрок сместился на клетку */
+    default void onMove() {}
+
+    /** Не осталось ни одного управляемого объекта */
+    default void onDeath() {}
+
+    /** Игрок достиг объекта с WIN */
+    default void onWin() {}
+
+    /**
+     * Содержимое клетки (x, y) изменилось: объект пришёл, ушёл, появился, удалён
+     * или сменил свойства. Вызывается сразу, по разу на каждое изменение, поэтому
+     * обработчик должен только запоминать клетку (например, для перерисовки).
+     */
+    default void onCellChanged(int x, int y) {}
+}
@@ -0,0 +1,176 @@
+package game.engine;
+
+import game.mechanic.MovementHandler;
+import log.LogLevel;
+import log.WindowLogger;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Игровой цикл с фиксированной частотой тактов.
+ * Нажатия клавиш и прочие изменения мира складываются в неблокирующую очередь;
+ * поток цикла на каждом такте выполняет всё накопленное одним пакетом и после
+ * этого один раз сообщает о результате (onTick), например для публикации снимка.
+ * Пока цикл не запущен (тесты, работа без окна), команды выполняются сразу в
+ * вызывающем потоке. Состояние цикла (executor) меняется и читается только под
+ * замком самого GameLoop, поэтому команда не может проскочить между остановкой
+ * цикла и последним разбором очереди, а очередь разбирается в вызывающем потоке
+ * только после того, как поток цикла завершился.
+ */
+public class GameLoop {
+    public static final int DEFAULT_TICKS_PER_SECOND = 60;
+    // Ходы сверх этого числа отбрасываются: автоповтор клавиши не копит очередь
+    private static final int MAX_PENDING_MOVES = 3;
+    private static final long STOP_WARNING_MILLIS = 1000;
+
+    private final MovementHandler movementHandler;
+    private final long tickNanos;
+    private final Runnable onTick;
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingMoves = new AtomicInteger();
+    // Guarded by this; a shut-down executor stays here until its thread is known to have finished
+    private ScheduledExecutorService executor;
+
+    public GameLoop(MovementHandler movementHandler, int ticksPerSecond, Runnable onTick) {
+        this.movementHandler = movementHandler;
+        this.tickNanos = TimeUnit.SECONDS.toNanos(1) / ticksPerSecond;
+        this.onTick = onTick;
+    }
+
+    /**
+     * Queues one player move; it is dropped if several moves are already waiting.
+     */
+    public void submitMove(int dx, int dy) {
+        if (!isRunning()) {
+            submit(() -> movementHandler.movePlayers(dx, dy));
+            return;
+        }
+        if (pendingMoves.incrementAndGet() > MAX_PENDING_MOVES) {
+            pendingMoves.decrementAndGet();
+            return;
+        }
+        submit(() -> {
+            pendingMoves.decrementAndGet();
+            movementHandler.movePlayers(dx, dy);
+        });
+    }
+
+    /**
+     * Queues an arbitrary change of the world (restart, loading) to run on the loop thread.
+     */
+    public synchronized void submit(Runnable command) {
+        if (executor == null) {
+            // The lock keeps start() from beginning ticks in the middle of this command
+            command.run();
+            onTick.run();
+            return;
+        }
+        commands.add(command);
+    }
+
+    public void start() {
+        ScheduledExecutorService previous;
+        synchronized (this) {
+            if (executor != null && !executor.isShutdown()) {
+                return;
+            }
+            previous = executor;
+        }
+        // A loop that is still stopping must finish its last tick before a new one starts
+        if (previous != null && !awaitTermination(previous)) {
+            return;
+        }
+        synchronized (this) {
+            if (executor != previous) {
+                return;
+            }
+            pendingMoves.set(0);
+            executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "game-loop");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Commands queued while the previous loop was stopping run on the first tick
+            executor.scheduleAtFixedRate(this::tick, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Stops the loop; commands still waiting in the queue are executed in the calling thread,
+     * but only once the loop thread has finished its last tick. If the wait is interrupted,
+     * the queue is left for the next stop() or start().
+     */
+    public void stop() {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = executor;
+            if (running == null) {
+                return;
+            }
+            running.shutdown();
+        }
+        // Wait without the lock: the last tick may still submit commands, they are queued
+        if (!awaitTermination(running)) {
+            return;
+        }
+        synchronized (this) {
+            if (executor != running) {
+                // Another stop() or start() has already taken over
+                return;
+            }
+            executor = null;
+            tick();
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    private static boolean awaitTermination(ScheduledExecutorService running) {
+        try {
+            if (!running.awaitTermination(STOP_WARNING_MILLIS, TimeUnit.MILLISECONDS)) {
+                // The loop thread still owns the world; draining now would run next to its tick
+                WindowLogger.warning("Game loop tick is still running after {} ms, waiting for it", STOP_WARNING_MILLIS);
+                running.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    void tick() {
+        int executed = drain();
+        if (executed > 0) {
+            // Отброшенная trace-запись ничего не создаёт
+            WindowLogger.log(LogLevel.Trace, "Game loop tick ran {} commands", executed);
+            runCommand(onTick);
+        }
+    }
+
+    private int drain() {
+        int executed = 0;
+        Runnable command;
+        while ((command = commands.poll()) != null) {
+            runCommand(command);
+            executed++;
+        }
+        return executed;
+    }
+
+    private void runCommand(Runnable command) {
+        // An exception must not stop the scheduled loop
+        try {
+            command.run();
+        } catch (RuntimeException e) {
+            WindowLogger.error("Game loop command failed", e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package game.engine;
+
+/**
+ * Размеры игрового поля в клетках.
+ * Движку нужны только они; пиксели и DPI остаются на стороне Swing (CoordinateGrid).
+ */
+public interface GridDimensions {
+    int getColumns();
+
+    int getRows();
+
+    static GridDimensions of(int columns, int rows) {
+        return new GridDimensions() {
+            @Override
+            public int getColumns() {
+                return columns;
+            }
+
+            @Override
+            public int getRows() {
+                return rows;
+            }
+        };
+    }
+}
@@ -0,0 +1,179 @@
+package game.mechanic;
+
+import game.model.CellOccupancy;
+import game.model.GameObject;
+import game.model.PositionListener;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Индекс занятости клеток поля.
+ * Для каждой клетки хранится список объектов, стоящих в ней, поэтому запрос
+ * "кто находится в клетке (x, y)" выполняется за O(1), без обхода всего мира.
+ * Объекты за пределами сетки хранятся отдельным списком.
+ * Для отрисовки индекс публикуется вместе со снимком мира (см. {@link #publish}):
+ * заново собираются только строки, в которых что-то изменилось.
+ */
+class CellIndex implements PositionListener {
+    private final int columns;
+    private final int rows;
+    private final ArrayList<GameObject>[] cells;
+    private final List<GameObject> outside = new ArrayList<>();
+
+    // Строки, изменившиеся с последней публикации, и сама последняя публикация
+    private final BitSet dirtyRows = new BitSet();
+    private boolean outsideDirty = false;
+    private int[][] publishedRows;
+    private int[] publishedOutside = new int[0];
+    private CellOccupancy published;
+
+    CellIndex(int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+        this.cells = newCells(columns * rows);
+        this.publishedRows = new int[rows][];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArrayList<GameObject>[] newCells(int count) {
+        return (ArrayList<GameObject>[]) new ArrayList<?>[count];
+    }
+
+    void add(GameObject object) {
+        bucketFor(object.getX(), object.getY()).add(object);
+        markDirty(object.getX(), object.getY());
+    }
+
+    void remove(GameObject object) {
+        removeFrom(object, object.getX(), object.getY());
+        // Удаление из мира сдвигает номера всех следующих объектов
+        markAllDirty();
+    }
+
+    void clear() {
+        for (ArrayList<GameObject> cell : cells) {
+            if (cell != null) {
+                cell.clear();
+            }
+        }
+        outside.clear();
+        markAllDirty();
+    }
+
+    @Override
+    public void onPositionChanged(GameObject object, int oldX, int oldY) {
+        removeFrom(object, oldX, oldY);
+        markDirty(oldX, oldY);
+        add(object);
+    }
+
+    /**
+     * Неизменяемая копия индекса в номерах объектов мира. Строки без изменений
+     * берутся из прошлой публикации, поэтому ход стоит O(изменённых строк).
+     */
+    CellOccupancy publish(ToIntFunction<GameObject> slotOf) {
+        if (published != null && dirtyRows.isEmpty() && !outsideDirty) {
+            return published;
+        }
+        int[][] next = publishedRows.clone();
+        for (int y = dirtyRows.nextSetBit(0); y >= 0; y = dirtyRows.nextSetBit(y + 1)) {
+            next[y] = buildRow(y, slotOf);
+        }
+        if (outsideDirty) {
+            publishedOutside = new int[outside.size()];
+            for (int i = 0; i < outside.size(); i++) {
+                publishedOutside[i] = slotOf.applyAsInt(outside.get(i));
+            }
+        }
+        dirtyRows.clear();
+        outsideDirty = false;
+        publishedRows = next;
+        published = new CellOccupancy(columns, next, publishedOutside);
+        return published;
+    }
+
+    private int[] buildRow(int y, ToIntFunction<GameObject> slotOf) {
+        int count = 0;
+        for (int x = 0; x < columns; x++) {
+            ArrayList<GameObject> cell = cells[y * columns + x];
+            if (cell != null) {
+                count += cell.size();
+            }
+        }
+        if (count == 0) {
+            return null;
+        }
+        int[] row = new int[columns + 1 + count];
+        int next = columns + 1;
+        for (int x = 0; x < columns; x++) {
+            row[x] = next;
+            ArrayList<GameObject> cell = cells[y * columns + x];
+            if (cell != null) {
+                for (int i = 0; i < cell.size(); i++) {
+                    row[next++] = slotOf.applyAsInt(cell.get(i));
+                }
+            }
+        }
+        row[columns] = next;
+        return row;
+    }
+
+    private void markDirty(int x, int y) {
+        if (inBounds(x, y)) {
+            dirtyRows.set(y);
+        } else {
+            outsideDirty = true;
+        }
+    }
+
+    private void markAllDirty() {
+        dirtyRows.set(0, rows);
+        outsideDirty = true;
+    }
+
+    /**
+     * Возвращает объекты в клетке. Для клеток сетки это "живой" список индекса:
+     * его нельзя изменять и нельзя обходить, одновременно перемещая объекты.
+     */
+    List<GameObject> objectsAt(int x, int y) {
+        if (!inBounds(x, y)) {
+            List<GameObject> result = new ArrayList<>();
+            for (GameObject obj : outside) {
+                if (obj.getX() == x && obj.getY() == y) {
+                    result.add(obj);
+                }
+            }
+            return result;
+        }
+        ArrayList<GameObject> cell = cells[y * columns + x];
+        return cell == null ? Collections.emptyList() : cell;
+    }
+
+    private void removeFrom(GameObject object, int x, int y) {
+        List<GameObject> bucket = inBounds(x, y) ? cells[y * columns + x] : outside;
+        if (bucket != null) {
+            bucket.remove(object);
+        }
+    }
+
+    private List<GameObject> bucketFor(int x, int y) {
+        if (!inBounds(x, y)) {
+            return outside;
+        }
+        int index = y * columns + x;
+        ArrayList<GameObject> cell = cells[index];
+        if (cell == null) {
+            cell = new ArrayList<>(2);
+            cells[index] = cell;
+        }
+        return cell;
+    }
+
+    private boolean inBounds(int x, int y) {
+        return x >= 0 && x < columns && y >= 0 && y < rows;
+    }
+}
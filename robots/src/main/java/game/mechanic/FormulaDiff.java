@@ -0,0 +1,34 @@
+package game.mechanic;
+
+import game.model.formula.Formula;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Изменение набора активных формул за один проход FormulaHandler:
+ * какие правила появились и какие перестали действовать.
+ */
+public class FormulaDiff {
+    public static final FormulaDiff EMPTY = new FormulaDiff(Collections.emptyList(), Collections.emptyList());
+
+    private final List<Formula> added;
+    private final List<Formula> removed;
+
+    public FormulaDiff(List<Formula> added, List<Formula> removed) {
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+    }
+
+    public List<Formula> getAdded() {
+        return added;
+    }
+
+    public List<Formula> getRemoved() {
+        return removed;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty();
+    }
+}
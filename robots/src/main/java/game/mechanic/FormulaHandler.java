@@ -7,240 +7,435 @@ import game.model.formula.FormulaElement;
 
 import java.util.*;
 
+/**
+ * Finds formulas and applies their properties to objects.
+ * MovementHandler reports added, removed and moved objects, so processFormulas()
+ * re-checks only the touched rows and columns and only the types whose rules changed.
+ */
 public class FormulaHandler {
+    // These are the properties usually defined by formulas
+    private static final Set<ObjectProperty> FORMULA_DEFINED = EnumSet.of(
+            ObjectProperty.PLAYER, ObjectProperty.STOP, ObjectProperty.WIN, ObjectProperty.KILL);
+    private static final Comparator<GameObject> BY_X = Comparator.comparingInt(GameObject::getX);
+    private static final Comparator<GameObject> BY_Y = Comparator.comparingInt(GameObject::getY);
+
     private final MovementHandler movementHandler;
-    private final List<Formula> activeFormulas = new ArrayList<>();
+
+    // Formula elements grouped by row (key is y) and by column (key is x)
+    private final Map<Integer, List<FormulaElement>> rowElements = new HashMap<>();
+    private final Map<Integer, List<FormulaElement>> columnElements = new HashMap<>();
+
+    // Formulas found in each row and column on the last pass
+    private final Map<Integer, List<Formula>> rowFormulas = new HashMap<>();
+    private final Map<Integer, List<Formula>> columnFormulas = new HashMap<>();
+
+    // Rows and columns changed since the last pass
+    private final Set<Integer> dirtyRows = new HashSet<>();
+    private final Set<Integer> dirtyColumns = new HashSet<>();
+
+    // Active rules: subject (lower case) -> how many formulas give each property
+    private final Map<String, EnumMap<ObjectProperty, Integer>> rules = new HashMap<>();
+
+    // Objects by type and label, and the properties already applied to each type
+    private final TypeIndex typeIndex = new TypeIndex();
+    private final Map<String, EnumSet<ObjectProperty>> appliedProperties = new HashMap<>();
+
+    // New objects whose properties do not follow the rules yet
+    private final Set<GameObject> pendingObjects = new LinkedHashSet<>();
+
+    private int elementCount = 0;
+    private boolean fullRebuild = true;
+    private FormulaDiff lastDiff = FormulaDiff.EMPTY;
 
     public FormulaHandler(MovementHandler movementHandler) {
         this.movementHandler = movementHandler;
     }
 
     public boolean processFormulas() {
-        List<Formula> oldFormulas = new ArrayList<>(activeFormulas);
-        activeFormulas.clear();
-
-        // Find all formula elements
-        List<FormulaElement> elements = findFormulaElements();
-        if (elements.isEmpty()) {
+        if (elementCount == 0) {
+            // Without formula elements no rules apply; object properties are left as they are
+            resetRules();
             return false;
         }
 
-        // Find valid formulas
-        findFormulas(elements);
+        if (fullRebuild) {
+            markAllLinesDirty();
+        }
+
+        // Re-check only the rows and columns touched since the last pass
+        List<Formula> added = new ArrayList<>();
+        List<Formula> removed = new ArrayList<>();
+        for (Integer y : dirtyRows) {
+            recomputeLine(rowElements, rowFormulas, y, true, added, removed);
+        }
+        for (Integer x : dirtyColumns) {
+            recomputeLine(columnElements, columnFormulas, x, false, added, removed);
+        }
+        dirtyRows.clear();
+        dirtyColumns.clear();
+
+        // Formulas that were only re-created in place are not a change
+        cancelOut(added, removed);
+        lastDiff = new FormulaDiff(added, removed);
 
-        // Check if formulas changed
-        boolean formulasChanged = !compareFormulas(oldFormulas, activeFormulas);
+        Set<String> affectedSubjects = updateRules(lastDiff);
 
         // Apply formula properties
-        boolean propertiesChanged = applyFormulas();
+        boolean propertiesChanged = applyFormulas(affectedSubjects);
+        fullRebuild = false;
 
-        return formulasChanged || propertiesChanged;
+        return !lastDiff.isEmpty() || propertiesChanged;
     }
 
-    private List<FormulaElement> findFormulaElements() {
-        List<FormulaElement> elements = new ArrayList<>();
-        for (GameObject obj : movementHandler.getGameObjects()) {
-            if (obj instanceof FormulaElement) {
-                elements.add((FormulaElement) obj);
-            }
+    /**
+     * Forces the next processFormulas() call to re-check every line and every object.
+     */
+    public void invalidate() {
+        fullRebuild = true;
+    }
+
+    void onObjectAdded(GameObject obj) {
+        if (obj instanceof FormulaElement) {
+            FormulaElement element = (FormulaElement) obj;
+            indexElement(element, element.getX(), element.getY());
+            elementCount++;
+        } else {
+            typeIndex.add(obj);
         }
-        return elements;
+        pendingObjects.add(obj);
     }
 
-    private void findFormulas(List<FormulaElement> elements) {
-        findDirectionalFormulas(elements, true);  // horizontal
-        findDirectionalFormulas(elements, false); // vertical
+    void onObjectRemoved(GameObject obj) {
+        if (obj instanceof FormulaElement) {
+            FormulaElement element = (FormulaElement) obj;
+            unindexElement(element, element.getX(), element.getY());
+            elementCount--;
+        } else {
+            typeIndex.remove(obj);
+        }
+        pendingObjects.remove(obj);
     }
 
-    private void findDirectionalFormulas(List<FormulaElement> elements, boolean horizontal) {
-        // Group elements by row/column
-        List<List<FormulaElement>> groupedElements = new ArrayList<>();
+    void onObjectMoved(GameObject obj, int oldX, int oldY) {
+        if (obj instanceof FormulaElement) {
+            FormulaElement element = (FormulaElement) obj;
+            unindexElement(element, oldX, oldY);
+            indexElement(element, element.getX(), element.getY());
+        }
+    }
 
-        if (horizontal) {
-            // Group by Y coordinate (row)
-            for (FormulaElement element : elements) {
-                int y = element.getPosition()[1];
+    void onObjectsCleared() {
+        rowElements.clear();
+        columnElements.clear();
+        typeIndex.clear();
+        pendingObjects.clear();
+        elementCount = 0;
+        resetRules();
+    }
 
-                // Find or create list for this row
-                List<FormulaElement> row = null;
-                for (List<FormulaElement> existingRow : groupedElements) {
-                    if (!existingRow.isEmpty() && existingRow.get(0).getPosition()[1] == y) {
-                        row = existingRow;
-                        break;
-                    }
-                }
+    private void resetRules() {
+        rowFormulas.clear();
+        columnFormulas.clear();
+        dirtyRows.clear();
+        dirtyColumns.clear();
+        rules.clear();
+        appliedProperties.clear();
+        lastDiff = FormulaDiff.EMPTY;
+        fullRebuild = true;
+    }
 
-                if (row == null) {
-                    row = new ArrayList<>();
-                    groupedElements.add(row);
-                }
+    private void indexElement(FormulaElement element, int x, int y) {
+        rowElements.computeIfAbsent(y, k -> new ArrayList<>()).add(element);
+        columnElements.computeIfAbsent(x, k -> new ArrayList<>()).add(element);
+        dirtyRows.add(y);
+        dirtyColumns.add(x);
+    }
 
-                row.add(element);
-            }
+    private void unindexElement(FormulaElement element, int x, int y) {
+        removeFromLine(rowElements, y, element);
+        removeFromLine(columnElements, x, element);
+        dirtyRows.add(y);
+        dirtyColumns.add(x);
+    }
 
-            // Sort each row by X coordinate
-            for (List<FormulaElement> row : groupedElements) {
-                row.sort((e1, e2) -> Integer.compare(e1.getPosition()[0], e2.getPosition()[0]));
+    private void removeFromLine(Map<Integer, List<FormulaElement>> lines, int line, FormulaElement element) {
+        List<FormulaElement> group = lines.get(line);
+        if (group != null) {
+            group.remove(element);
+            if (group.isEmpty()) {
+                lines.remove(line);
             }
-        } else {
-            // Group by X coordinate (column)
-            for (FormulaElement element : elements) {
-                int x = element.getPosition()[0];
-
-                // Find or create list for this column
-                List<FormulaElement> column = null;
-                for (List<FormulaElement> existingColumn : groupedElements) {
-                    if (!existingColumn.isEmpty() && existingColumn.get(0).getPosition()[0] == x) {
-                        column = existingColumn;
-                        break;
-                    }
-                }
-
-                if (column == null) {
-                    column = new ArrayList<>();
-                    groupedElements.add(column);
-                }
+        }
+    }
 
-                column.add(element);
-            }
+    private void markAllLinesDirty() {
+        dirtyRows.addAll(rowElements.keySet());
+        dirtyRows.addAll(rowFormulas.keySet());
+        dirtyColumns.addAll(columnElements.keySet());
+        dirtyColumns.addAll(columnFormulas.keySet());
+    }
 
-            // Sort each column by Y coordinate
-            for (List<FormulaElement> column : groupedElements) {
-                column.sort((e1, e2) -> Integer.compare(e1.getPosition()[1], e2.getPosition()[1]));
-            }
+    private void recomputeLine(Map<Integer, List<FormulaElement>> lines, Map<Integer, List<Formula>> formulas,
+                               int line, boolean horizontal, List<Formula> added, List<Formula> removed) {
+        List<Formula> oldFormulas = formulas.remove(line);
+        if (oldFormulas != null) {
+            removed.addAll(oldFormulas);
         }
 
-        // Check for formulas in each row/column
-        for (List<FormulaElement> group : groupedElements) {
-            for (int i = 0; i <= group.size() - 3; i++) {
-                FormulaElement e1 = group.get(i);
-                FormulaElement e2 = group.get(i + 1);
-                FormulaElement e3 = group.get(i + 2);
-
-                // Check if they're adjacent
-                boolean adjacent;
-                if (horizontal) {
-                    adjacent = e2.getPosition()[0] == e1.getPosition()[0] + 1 &&
-                            e3.getPosition()[0] == e2.getPosition()[0] + 1;
-                } else {
-                    adjacent = e2.getPosition()[1] == e1.getPosition()[1] + 1 &&
-                            e3.getPosition()[1] == e2.getPosition()[1] + 1;
-                }
+        List<FormulaElement> elements = lines.get(line);
+        if (elements == null || elements.size() < 3) {
+            return;
+        }
 
-                if (adjacent) {
-                    Formula formula = new Formula(e1, e2, e3);
-                    if (formula.isValid()) {
-                        activeFormulas.add(formula);
-                    }
+        // Sort the row by X coordinate (the column by Y coordinate)
+        List<FormulaElement> group = new ArrayList<>(elements);
+        group.sort(horizontal ? BY_X : BY_Y);
+
+        List<Formula> found = new ArrayList<>();
+        for (int i = 0; i <= group.size() - 3; i++) {
+            FormulaElement e1 = group.get(i);
+            FormulaElement e2 = group.get(i + 1);
+            FormulaElement e3 = group.get(i + 2);
+
+            // Check if they're adjacent
+            int c1 = horizontal ? e1.getX() : e1.getY();
+            int c2 = horizontal ? e2.getX() : e2.getY();
+            int c3 = horizontal ? e3.getX() : e3.getY();
+            boolean adjacent = c2 == c1 + 1 && c3 == c2 + 1;
+
+            if (adjacent) {
+                Formula formula = new Formula(e1, e2, e3);
+                if (formula.isValid()) {
+                    found.add(formula);
                 }
             }
         }
+
+        if (!found.isEmpty()) {
+            formulas.put(line, found);
+            added.addAll(found);
+        }
     }
 
-    private boolean compareFormulas(List<Formula> list1, List<Formula> list2) {
-        if (list1.size() != list2.size()) {
-            return false;
+    /**
+     * Removes pairs of equal rules from both lists, leaving the net change.
+     */
+    private void cancelOut(List<Formula> added, List<Formula> removed) {
+        if (added.isEmpty() || removed.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> removedCounts = new HashMap<>();
+        for (Formula formula : removed) {
+            removedCounts.merge(ruleKey(formula), 1, Integer::sum);
         }
 
-        for (Formula f1 : list1) {
-            boolean found = false;
-            for (Formula f2 : list2) {
-                if (f1.getSubjectValue().equals(f2.getSubjectValue()) &&
-                        f1.getPropertyValue() == f2.getPropertyValue()) {
-                    found = true;
-                    break;
-                }
+        Map<String, Integer> matched = new HashMap<>();
+        Iterator<Formula> it = added.iterator();
+        while (it.hasNext()) {
+            String key = ruleKey(it.next());
+            if (removedCounts.getOrDefault(key, 0) > 0) {
+                removedCounts.merge(key, -1, Integer::sum);
+                matched.merge(key, 1, Integer::sum);
+                it.remove();
             }
-            if (!found) return false;
         }
 
-        return true;
+        it = removed.iterator();
+        while (it.hasNext()) {
+            String key = ruleKey(it.next());
+            if (matched.getOrDefault(key, 0) > 0) {
+                matched.merge(key, -1, Integer::sum);
+                it.remove();
+            }
+        }
     }
 
-    private boolean applyFormulas() {
-        boolean propertiesChanged = false;
+    /**
+     * Applies the diff to the rule table and returns the subjects whose rules changed.
+     */
+    private Set<String> updateRules(FormulaDiff diff) {
+        Set<String> affected = new HashSet<>();
+        for (Formula formula : diff.getRemoved()) {
+            ObjectProperty property = formula.getPropertyValue();
+            if (property == null) continue;
 
-        // First, ensure all formula elements only have PUSHABLE property
-        for (GameObject obj : movementHandler.getGameObjects()) {
-            if (obj instanceof FormulaElement) {
-                boolean hadDifferentProps = obj.hasProperty(ObjectProperty.PLAYER) ||
-                        obj.hasProperty(ObjectProperty.STOP) ||
-                        obj.hasProperty(ObjectProperty.WIN) ||
-                        obj.hasProperty(ObjectProperty.KILL);
+            String subject = typeIndex.key(formula.getSubjectValue());
+            EnumMap<ObjectProperty, Integer> counts = rules.get(subject);
+            if (counts != null) {
+                counts.computeIfPresent(property, (k, v) -> v > 1 ? v - 1 : null);
+                if (counts.isEmpty()) {
+                    rules.remove(subject);
+                }
+            }
+            affected.add(subject);
+        }
+        for (Formula formula : diff.getAdded()) {
+            ObjectProperty property = formula.getPropertyValue();
+            if (property == null) continue;
 
-                obj.clearProperties();
-                obj.addProperty(ObjectProperty.PUSHABLE);
+            String subject = typeIndex.key(formula.getSubjectValue());
+            rules.computeIfAbsent(subject, k -> new EnumMap<>(ObjectProperty.class)).merge(property, 1, Integer::sum);
+            affected.add(subject);
+        }
+        return affected;
+    }
 
-                if (hadDifferentProps) {
-                    propertiesChanged = true;
-                }
+    private boolean applyFormulas(Set<String> affectedSubjects) {
+        boolean propertiesChanged = false;
+
+        if (fullRebuild) {
+            for (int slot = 0; slot < movementHandler.objectCount(); slot++) {
+                propertiesChanged |= applyTo(movementHandler.objectAt(slot));
+            }
+            appliedProperties.clear();
+            for (String subject : rules.keySet()) {
+                appliedProperties.put(subject, propertiesOf(subject));
+            }
+        } else {
+            // Only the types whose rules changed, each as one EnumSet diff over its bucket
+            for (String subject : affectedSubjects) {
+                propertiesChanged |= applyToType(subject);
+            }
+            for (GameObject obj : pendingObjects) {
+                propertiesChanged |= applyTo(obj);
             }
         }
+        pendingObjects.clear();
 
-        // Create a map to track which objects should have which formula-defined properties
-        Map<GameObject, Set<ObjectProperty>> newPropertiesMap = new HashMap<>();
+        return propertiesChanged;
+    }
 
-        // Determine which properties each object should have based on current formulas
-        for (Formula formula : activeFormulas) {
-            String targetType = formula.getSubjectValue();
-            ObjectProperty property = formula.getPropertyValue();
+    /**
+     * Applies the change of one subject's rules to every object of that type.
+     */
+    private boolean applyToType(String subject) {
+        EnumSet<ObjectProperty> current = propertiesOf(subject);
+        EnumSet<ObjectProperty> previous = appliedProperties.get(subject);
+        if (current.isEmpty()) {
+            appliedProperties.remove(subject);
+        } else {
+            appliedProperties.put(subject, current);
+        }
 
-            if (property == null) continue;
+        EnumSet<ObjectProperty> toAdd = EnumSet.copyOf(current);
+        EnumSet<ObjectProperty> toRemove = EnumSet.noneOf(ObjectProperty.class);
+        if (previous != null) {
+            toAdd.removeAll(previous);
+            toRemove.addAll(previous);
+            toRemove.removeAll(current);
+            toRemove.retainAll(FORMULA_DEFINED);
+        }
+        if (toAdd.isEmpty() && toRemove.isEmpty()) {
+            return false;
+        }
 
-            for (GameObject obj : movementHandler.getGameObjects()) {
-                // Skip formula elements
-                if (obj instanceof FormulaElement) {
-                    continue;
+        boolean propertiesChanged = false;
+        for (GameObject obj : typeIndex.objectsOf(subject)) {
+            boolean objectChanged = false;
+            for (ObjectProperty prop : toAdd) {
+                if (!obj.hasProperty(prop)) {
+                    obj.addProperty(prop);
+                    objectChanged = true;
                 }
+            }
 
-                // If object matches the formula's subject
-                if (obj.getType().equalsIgnoreCase(targetType) ||
-                        obj.getLabel().equalsIgnoreCase(targetType)) {
-                    newPropertiesMap.computeIfAbsent(obj, k -> new HashSet<>()).add(property);
+            if (!toRemove.isEmpty()) {
+                // The object may still get the property through its type or its label
+                String typeKey = typeIndex.key(obj.getType());
+                String otherKey = subject.equals(typeKey) ? typeIndex.key(obj.getLabel()) : typeKey;
+                EnumMap<ObjectProperty, Integer> other = rules.get(otherKey);
+                for (ObjectProperty prop : toRemove) {
+                    if (obj.hasProperty(prop) && (other == null || !other.containsKey(prop))) {
+                        obj.removeProperty(prop);
+                        objectChanged = true;
+                    }
                 }
             }
+
+            if (objectChanged) {
+                movementHandler.onPropertiesChanged(obj);
+                propertiesChanged = true;
+            }
         }
+        return propertiesChanged;
+    }
 
-        // Apply changes: add/remove properties
-        for (GameObject obj : movementHandler.getGameObjects()) {
-            // Skip formula elements
-            if (obj instanceof FormulaElement) {
-                continue;
+    /**
+     * Brings the properties of one object in line with the current rules.
+     */
+    private boolean applyTo(GameObject obj) {
+        // Formula elements only ever have the PUSHABLE property
+        if (obj instanceof FormulaElement) {
+            boolean hadDifferentProps = obj.hasProperty(ObjectProperty.PLAYER) ||
+                    obj.hasProperty(ObjectProperty.STOP) ||
+                    obj.hasProperty(ObjectProperty.WIN) ||
+                    obj.hasProperty(ObjectProperty.KILL);
+
+            obj.clearProperties();
+            obj.addProperty(ObjectProperty.PUSHABLE);
+            if (hadDifferentProps) {
+                movementHandler.onPropertiesChanged(obj);
             }
+            return hadDifferentProps;
+        }
 
-            // Get properties this object should have
-            Set<ObjectProperty> newProperties = newPropertiesMap.getOrDefault(obj, Collections.emptySet());
+        boolean propertiesChanged = false;
+        EnumSet<ObjectProperty> required = propertiesOf(typeIndex.key(obj.getType()));
+        required.addAll(propertiesOf(typeIndex.key(obj.getLabel())));
 
+        for (ObjectProperty prop : ObjectProperty.values()) {
             // Add missing properties
-            for (ObjectProperty prop : newProperties) {
-                if (!obj.hasProperty(prop)) {
-                    obj.addProperty(prop);
-                    propertiesChanged = true;
-                }
+            if (required.contains(prop) && !obj.hasProperty(prop)) {
+                obj.addProperty(prop);
+                propertiesChanged = true;
             }
 
             // Remove properties that are not in the new set (only formula-defined ones)
-            for (ObjectProperty prop : ObjectProperty.values()) {
-                if (isFormulaDefined(prop) && obj.hasProperty(prop) && !newProperties.contains(prop)) {
-                    obj.removeProperty(prop);
-                    propertiesChanged = true;
-                }
+            if (!required.contains(prop) && isFormulaDefined(prop) && obj.hasProperty(prop)) {
+                obj.removeProperty(prop);
+                propertiesChanged = true;
             }
         }
 
+        if (propertiesChanged) {
+            movementHandler.onPropertiesChanged(obj);
+        }
         return propertiesChanged;
     }
 
+    private EnumSet<ObjectProperty> propertiesOf(String subject) {
+        EnumSet<ObjectProperty> result = EnumSet.noneOf(ObjectProperty.class);
+        EnumMap<ObjectProperty, Integer> counts = rules.get(subject);
+        if (counts != null) {
+            result.addAll(counts.keySet());
+        }
+        return result;
+    }
+
+    private String ruleKey(Formula formula) {
+        return typeIndex.key(formula.getSubjectValue()) + ":" + formula.getPropertyValue();
+    }
+
     // Helper method to determine if a property is typically set by formulas
     private boolean isFormulaDefined(ObjectProperty prop) {
-        // These are the properties usually defined by formulas
-        return prop == ObjectProperty.PLAYER ||
-                prop == ObjectProperty.STOP ||
-                prop == ObjectProperty.WIN ||
-                prop == ObjectProperty.KILL;
+        return FORMULA_DEFINED.contains(prop);
     }
 
     public List<Formula> getActiveFormulas() {
-        return new ArrayList<>(activeFormulas);
+        List<Formula> result = new ArrayList<>();
+        for (List<Formula> formulas : rowFormulas.values()) {
+            result.addAll(formulas);
+        }
+        for (List<Formula> formulas : columnFormulas.values()) {
+            result.addAll(formulas);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the rules added and removed by the last processFormulas() call.
+     */
+    public FormulaDiff getLastDiff() {
+        return lastDiff;
     }
-}
\ No newline at end of file
+}
@@ -2,218 +2,422 @@ package game.mechanic;
 
 import game.model.GameObject;
 import game.model.ObjectProperty;
-import gui.ui.CoordinateGrid;
-import gui.system.sound.SoundManager;
+import game.model.PositionListener;
+import game.model.WorldSnapshot;
+import game.model.WorldStore;
+import game.engine.GameEventListener;
+import game.engine.GridDimensions;
 import lombok.Getter;
 
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
 
 public class MovementHandler {
-    private final CoordinateGrid grid;
-    private final List<GameObject> gameObjects = new ArrayList<>();
+    private static final int PUSHABLE_BIT = ObjectProperty.PUSHABLE.bit();
+    private static final int STOP_BIT = ObjectProperty.STOP.bit();
+    private static final int PLAYER_BIT = ObjectProperty.PLAYER.bit();
+    private static final int KILL_BIT = ObjectProperty.KILL.bit();
+    private static final int WIN_BIT = ObjectProperty.WIN.bit();
+
+    private final GridDimensions grid;
+    // Columnar storage of all objects: positions, type ids and property masks
+    private final WorldStore world = new WorldStore();
+    private final CellIndex cellIndex;
+    private final PositionListener positionListener = this::onObjectMoved;
     @Getter
     private final FormulaHandler formulaHandler;
     @Getter
     private boolean gameWon = false;
     @Getter
     private boolean gameOver = false;
-
-    public MovementHandler(CoordinateGrid grid) {
+    private final List<GameEventListener> listeners = new ArrayList<>();
+    // Bumped on every change of the world; a snapshot with the same version is still current
+    private long version = 1;
+    private WorldSnapshot snapshot = WorldSnapshot.EMPTY;
+    // Reused by the move pass: everything that moves in this step, collected before any move
+    private final List<GameObject> movers = new ArrayList<>();
+
+    // Per-cell answers of the current move pass, valid while the cell's stamp equals passStamp
+    private final int[] enterStamps;
+    private final boolean[] enterable;
+    private final int[] pushStamps;
+    private int passStamp = 0;
+
+    // Cells whose contents or properties changed since the last kill/win evaluation
+    private final boolean[] dirtyFlags;
+    private int[] dirtyCells = new int[16];
+    private int dirtyCount = 0;
+    // Changed objects outside the grid (not covered by the dense cell flags)
+    private final List<GameObject> dirtyOutside = new ArrayList<>();
+    // An object was removed: the "no players left" condition must be re-checked
+    private boolean playersRemoved = false;
+
+    public MovementHandler(GridDimensions grid) {
         this.grid = grid;
+        this.cellIndex = new CellIndex(grid.getColumns(), grid.getRows());
+        this.dirtyFlags = new boolean[grid.getColumns() * grid.getRows()];
+        this.enterStamps = new int[grid.getColumns() * grid.getRows()];
+        this.enterable = new boolean[grid.getColumns() * grid.getRows()];
+        this.pushStamps = new int[grid.getColumns() * grid.getRows()];
         this.formulaHandler = new FormulaHandler(this);
     }
 
+    public void addGameEventListener(GameEventListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeGameEventListener(GameEventListener listener) {
+        listeners.remove(listener);
+    }
+
     public void addGameObject(GameObject object) {
-        gameObjects.add(object);
+        world.add(object);
+        cellIndex.add(object);
+        object.setPositionListener(positionListener);
+        formulaHandler.onObjectAdded(object);
+        markDirty(object);
+        fireCellChanged(object.getX(), object.getY());
+    }
+
+    // Keeps the cell index and the formula lines in sync with direct setPosition calls
+    private void onObjectMoved(GameObject object, int oldX, int oldY) {
+        cellIndex.onPositionChanged(object, oldX, oldY);
+        formulaHandler.onObjectMoved(object, oldX, oldY);
+        markDirty(object);
+        fireCellChanged(oldX, oldY);
+        fireCellChanged(object.getX(), object.getY());
+    }
+
+    /**
+     * Called by the formula handler when rules changed the properties of an object.
+     */
+    void onPropertiesChanged(GameObject object) {
+        markDirty(object);
+        fireCellChanged(object.getX(), object.getY());
+    }
+
+    private void fireCellChanged(int x, int y) {
+        version++;
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onCellChanged(x, y);
+        }
+    }
+
+    /**
+     * Returns the snapshot of the world after the last change, building it only
+     * if something changed since the previous call.
+     */
+    public WorldSnapshot getSnapshot() {
+        if (snapshot.getVersion() != version) {
+            snapshot = world.snapshot(version, cellIndex.publish(world::slotOf));
+        }
+        return snapshot;
     }
 
+    int objectCount() {
+        return world.size();
+    }
+
+    GameObject objectAt(int slot) {
+        return world.handle(slot);
+    }
+
+    /**
+     * Objects of the current snapshot in world order: a read-only view, nothing is copied.
+     */
     public List<GameObject> getGameObjects() {
-        return new ArrayList<>(gameObjects);
+        return getSnapshot().objects();
     }
 
     public ArrayList<GameObject> getPlayerObjects() {
         ArrayList<GameObject> players = new ArrayList<>();
-        for (GameObject obj : gameObjects) {
-            if (obj.hasProperty(ObjectProperty.PLAYER)) {
-                players.add(obj);
+        int playerBit = ObjectProperty.PLAYER.bit();
+        for (int slot = 0; slot < world.size(); slot++) {
+            if ((world.mask(slot) & playerBit) != 0) {
+                players.add(world.handle(slot));
             }
         }
         return players;
     }
 
     public boolean movePlayers(int dx, int dy) {
+        boolean wasGameOver = gameOver;
+        boolean wasGameWon = gameWon;
+
         boolean moved = movePlayersInternal(dx, dy);
         boolean formulaChanged = formulaHandler.processFormulas();
 
-        // 1) play step sound only if we actually changed position
+        // 1) update game state: once per step, only on the cells touched by moves and rule changes
+        evaluateDirtyCells();
+
+        // 2) notify subscribers (sound, UI): step only if we actually changed position
         if (moved) {
-            SoundManager.playMove();
+            for (GameEventListener listener : listeners) {
+                listener.onMove();
+            }
         }
-
-        // 2) update game state & play death/win as needed
-        if (moved || formulaChanged) {
-            boolean wasGameOver = gameOver;
-            boolean wasGameWon  = gameWon;
-            checkGameState();
-
+        if (gameOver && !wasGameOver) {
+            for (GameEventListener listener : listeners) {
+                listener.onDeath();
+            }
+        }
+        if (gameWon && !wasGameWon) {
+            for (GameEventListener listener : listeners) {
+                listener.onWin();
+            }
         }
 
         return moved || formulaChanged;
     }
 
 
+    /**
+     * One batched move pass over all players. Phase 1 decides, against the world as it is
+     * before the step, which cells can be entered and which objects move: players whose
+     * target can be entered, and the pushables in front of them. Players that push the same
+     * chain or walk into the same cell share one answer per cell, so the result does not
+     * depend on the order of the players. Phase 2 then moves everything at once.
+     */
     private boolean movePlayersInternal(int dx, int dy) {
-        List<GameObject> players = getPlayerObjects();
-        if (players.isEmpty() || (dx == 0 && dy == 0)) {
+        if (dx == 0 && dy == 0) {
             return false;
         }
 
-        // Sort players by position based on movement direction for correct pushing behavior
-        if (dx > 0) {
-            players.sort((p1, p2) -> p2.getPosition()[0] - p1.getPosition()[0]);
-        } else if (dx < 0) {
-            players.sort(Comparator.comparingInt(p -> p.getPosition()[0]));
-        } else if (dy > 0) {
-            players.sort((p1, p2) -> p2.getPosition()[1] - p1.getPosition()[1]);
-        } else {
-            players.sort(Comparator.comparingInt(p -> p.getPosition()[1]));
+        passStamp++;
+        movers.clear();
+        for (int slot = 0; slot < world.size(); slot++) {
+            if ((world.mask(slot) & PLAYER_BIT) == 0) {
+                continue;
+            }
+            int targetX = world.x(slot) + dx;
+            int targetY = world.y(slot) + dy;
+            if (canEnter(targetX, targetY, dx, dy)) {
+                movers.add(world.handle(slot));
+                collectPushed(targetX, targetY, dx, dy);
+            }
+        }
+        if (movers.isEmpty()) {
+            return false;
         }
 
-        boolean anyPlayerMoved = false;
-
-        // Process each player independently
-        for (GameObject player : players) {
-            int[] playerPosition = player.getPosition();
-            int playerX = playerPosition[0];
-            int playerY = playerPosition[1];
-            int newPlayerX = playerX + dx;
-            int newPlayerY = playerY + dy;
+        // Commit: cells are re-indexed by the position listener
+        for (int i = 0; i < movers.size(); i++) {
+            GameObject obj = movers.get(i);
+            obj.setPosition(obj.getX() + dx, obj.getY() + dy);
+        }
+        movers.clear();
+        return true;
+    }
 
-            // Check boundaries
-            if (newPlayerX < 0 || newPlayerX >= grid.getColumns() ||
-                    newPlayerY < 0 || newPlayerY >= grid.getRows()) {
-                continue; // Skip this player
+    /**
+     * Whether an object moving in the direction (dx, dy) can enter the cell. A cell is blocked
+     * by a STOP object that stays put; pushables and STOP players leave it exactly when the
+     * next cell can be entered. The walk goes forward to the first cell that decides and fills
+     * in the answer for every cell on the way, so each cell is examined once per pass.
+     */
+    private boolean canEnter(int x, int y, int dx, int dy) {
+        int columns = grid.getColumns();
+        int steps = 0;
+        boolean result;
+        while (true) {
+            if (x < 0 || x >= columns || y < 0 || y >= grid.getRows()) {
+                result = false;
+                break;
             }
-
-            // Check path and push objects if needed
-            if (!canMoveToPosition(playerX, playerY, dx, dy)) {
-                continue; // Path blocked for this player
+            int cell = y * columns + x;
+            if (enterStamps[cell] == passStamp) {
+                result = enterable[cell];
+                break;
             }
 
-            // Move this player
-            player.setPosition(newPlayerX, newPlayerY);
-            anyPlayerMoved = true;
-
-            checkGameState();
+            boolean leaving = false;
+            boolean blocked = false;
+            List<GameObject> objects = getObjectsAt(x, y);
+            for (int i = 0; i < objects.size(); i++) {
+                int mask = objects.get(i).getPropertyMask();
+                if ((mask & PUSHABLE_BIT) != 0 || (mask & (STOP_BIT | PLAYER_BIT)) == (STOP_BIT | PLAYER_BIT)) {
+                    leaving = true;
+                } else if ((mask & STOP_BIT) != 0) {
+                    blocked = true;
+                }
+            }
+            if (blocked || !leaving) {
+                result = !blocked;
+                remember(cell, result);
+                break;
+            }
+            steps++;
+            x += dx;
+            y += dy;
         }
 
-        return anyPlayerMoved;
-    }
-
-
-    private void checkGameState() {
-        List<GameObject> players = getPlayerObjects();
-        gameOver = players.isEmpty();
-        if (gameOver) {
-            return;
+        // Every cell walked over depends on the one in front of it
+        for (int i = 0; i < steps; i++) {
+            x -= dx;
+            y -= dy;
+            remember(y * columns + x, result);
         }
+        return result;
+    }
 
-        for (GameObject player : players) {
-            int[] playerPos = player.getPosition();
-            List<GameObject> objectsAtPos = getObjectsAt(playerPos[0], playerPos[1]);
+    private void remember(int cell, boolean canEnter) {
+        enterStamps[cell] = passStamp;
+        enterable[cell] = canEnter;
+    }
 
-            for (GameObject obj : objectsAtPos) {
-                if (obj.hasProperty(ObjectProperty.KILL)) {
-                    gameObjects.remove(player);
-                    break;
-                }
-                if (obj.hasProperty(ObjectProperty.WIN)) {
-                    gameWon = true;
-                    break;
+    /**
+     * Adds the pushables of the chain starting at the cell to the movers. The chain is known
+     * to move; a part already collected for another player is not walked again.
+     */
+    private void collectPushed(int x, int y, int dx, int dy) {
+        int columns = grid.getColumns();
+        while (x >= 0 && x < columns && y >= 0 && y < grid.getRows()) {
+            int cell = y * columns + x;
+            if (pushStamps[cell] == passStamp) {
+                return;
+            }
+            pushStamps[cell] = passStamp;
+
+            boolean pushed = false;
+            List<GameObject> objects = getObjectsAt(x, y);
+            for (int i = 0; i < objects.size(); i++) {
+                GameObject obj = objects.get(i);
+                int mask = obj.getPropertyMask();
+                if ((mask & PUSHABLE_BIT) != 0) {
+                    pushed = true;
+                    // Players move on their own: the cell in front of them can be entered
+                    if ((mask & PLAYER_BIT) == 0) {
+                        movers.add(obj);
+                    }
                 }
             }
-
-            if (gameWon) break;
+            if (!pushed) {
+                return;
+            }
+            x += dx;
+            y += dy;
         }
     }
 
 
     /**
-     * Checks if a move to the target position is possible
+     * Full kill/win check over every player (used after loading a saved game).
      */
-    private boolean canMoveToPosition(int startX, int startY, int dx, int dy) {
-        int nextX = startX + dx;
-        int nextY = startY + dy;
-
-        // Check boundaries
-        if (nextX < 0 || nextX >= grid.getColumns() ||
-                nextY < 0 || nextY >= grid.getRows()) {
-            return false;
+    private void checkGameState() {
+        for (int slot = 0; slot < world.size(); slot++) {
+            if ((world.mask(slot) & PLAYER_BIT) != 0) {
+                markDirty(world.handle(slot));
+            }
         }
+        playersRemoved = true;
+        evaluateDirtyCells();
+    }
 
-        // Check all objects at the target position
-        List<GameObject> objectsAtNext = getObjectsAt(nextX, nextY);
-
-        // If no objects, path is clear
-        if (objectsAtNext.isEmpty()) {
-            return true;
+    /**
+     * Kill/win evaluation over the changed cells only. For a cell with players the first
+     * KILL or WIN object in it decides: KILL removes every player there, WIN wins the game.
+     * The game is over once no players are left after the kills.
+     */
+    private void evaluateDirtyCells() {
+        if (dirtyCount == 0 && dirtyOutside.isEmpty() && !playersRemoved) {
+            return;
         }
 
-        boolean hasStop = false;
-        boolean needsPush = false;
+        List<GameObject> killed = null;
+        for (int i = 0; i < dirtyCount; i++) {
+            int cell = dirtyCells[i];
+            dirtyFlags[cell] = false;
+            killed = evaluateCell(getObjectsAt(cell % grid.getColumns(), cell / grid.getColumns()), killed);
+        }
+        dirtyCount = 0;
+        for (int i = 0; i < dirtyOutside.size(); i++) {
+            GameObject obj = dirtyOutside.get(i);
+            killed = evaluateCell(getObjectsAt(obj.getX(), obj.getY()), killed);
+        }
+        dirtyOutside.clear();
 
-        // Check all objects at the position
-        for (GameObject obj : objectsAtNext) {
-            if (obj.hasProperty(ObjectProperty.STOP)) {
-                hasStop = true;
-            }
-            if (obj.hasProperty(ObjectProperty.PUSHABLE)) {
-                needsPush = true;
+        // Remove killed players after the scan so that cells do not change under it
+        if (killed != null) {
+            for (GameObject player : killed) {
+                removeGameObject(player);
             }
         }
+        playersRemoved = false;
+        gameOver = !hasPlayers();
+    }
 
-        // If any object has STOP and is not pushable, we can't move
-        if (hasStop) {
-            return false;
+    private List<GameObject> evaluateCell(List<GameObject> cell, List<GameObject> killed) {
+        int cellMask = 0;
+        int deciding = 0;
+        int decidingSlot = Integer.MAX_VALUE;
+        for (int i = 0; i < cell.size(); i++) {
+            GameObject obj = cell.get(i);
+            int mask = obj.getPropertyMask();
+            cellMask |= mask;
+            // The cell keeps objects in arrival order; world order is stable, so it decides
+            if ((mask & (KILL_BIT | WIN_BIT)) != 0 && world.slotOf(obj) < decidingSlot) {
+                decidingSlot = world.slotOf(obj);
+                deciding = mask & (KILL_BIT | WIN_BIT);
+            }
+        }
+        if ((cellMask & PLAYER_BIT) == 0) {
+            return killed;
         }
 
-        // If we have objects to push, check if we can push them
-        if (needsPush) {
-            // Try to push all pushable objects
-            boolean canPushAll = true;
-            for (GameObject obj : objectsAtNext) {
-                if (obj.hasProperty(ObjectProperty.PUSHABLE)) {
-                    // Recursively check if we can push this object
-                    if (!canMoveToPosition(nextX, nextY, dx, dy)) {
-                        canPushAll = false;
-                        break;
-                    }
-
-                    // If we can push, update its position
-                    obj.setPosition(nextX + dx, nextY + dy);
+        // Same order as the old per-player scan: the first KILL or WIN object in world order wins
+        if ((deciding & KILL_BIT) != 0) {
+            if (killed == null) {
+                killed = new ArrayList<>();
+            }
+            for (int i = 0; i < cell.size(); i++) {
+                GameObject obj = cell.get(i);
+                // A player listed twice (outside the grid) is simply not found the second time
+                if (obj.hasProperty(ObjectProperty.PLAYER)) {
+                    killed.add(obj);
                 }
             }
-            return canPushAll;
+        } else if (deciding != 0) {
+            gameWon = true;
         }
+        return killed;
+    }
 
-        // If no STOP or PUSHABLE objects, we can move freely (overlap)
-        return true;
+    private boolean hasPlayers() {
+        for (int slot = 0; slot < world.size(); slot++) {
+            if ((world.mask(slot) & PLAYER_BIT) != 0) {
+                return true;
+            }
+        }
+        return false;
     }
 
+    private void markDirty(GameObject object) {
+        int x = object.getX();
+        int y = object.getY();
+        if (x < 0 || x >= grid.getColumns() || y < 0 || y >= grid.getRows()) {
+            dirtyOutside.add(object);
+            return;
+        }
+        int cell = y * grid.getColumns() + x;
+        if (dirtyFlags[cell]) {
+            return;
+        }
+        dirtyFlags[cell] = true;
+        if (dirtyCount == dirtyCells.length) {
+            dirtyCells = Arrays.copyOf(dirtyCells, dirtyCount * 2);
+        }
+        dirtyCells[dirtyCount++] = cell;
+    }
+
+
     /**
-     * Returns all objects at the specified position
+     * Returns all objects at the specified position (live cell of the index, read-only)
      */
     private List<GameObject> getObjectsAt(int x, int y) {
-        List<GameObject> result = new ArrayList<>();
-        for (GameObject obj : gameObjects) {
-            int[] pos = obj.getPosition();
-            if (pos[0] == x && pos[1] == y) {
-                result.add(obj);
-            }
-        }
-        return result;
+        return cellIndex.objectsAt(x, y);
     }
 
     /**
@@ -226,12 +430,30 @@ public class MovementHandler {
 
     // Removes an object from the game world
     public void removeGameObject(GameObject object) {
-        gameObjects.remove(object);
+        if (world.remove(object)) {
+            cellIndex.remove(object);
+            object.setPositionListener(null);
+            formulaHandler.onObjectRemoved(object);
+            playersRemoved = true;
+            fireCellChanged(object.getX(), object.getY());
+        }
     }
 
     // Removes all objects from the game world
     public void clearGameObjects() {
-        gameObjects.clear();
+        for (int slot = 0; slot < world.size(); slot++) {
+            world.handle(slot).setPositionListener(null);
+            fireCellChanged(world.x(slot), world.y(slot));
+        }
+        world.clear();
+        cellIndex.clear();
+        formulaHandler.onObjectsCleared();
+        for (int i = 0; i < dirtyCount; i++) {
+            dirtyFlags[dirtyCells[i]] = false;
+        }
+        dirtyCount = 0;
+        dirtyOutside.clear();
+        playersRemoved = true;
     }
 
     // Add this method to MovementHandler class
@@ -0,0 +1,74 @@
+package game.mechanic;
+
+import game.model.GameObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Индекс объектов по типу.
+ * Объект попадает в корзину своего типа и, если подпись отличается от типа,
+ * в корзину подписи - формулы сопоставляются и с тем, и с другим.
+ * Ключи приводятся к нижнему регистру один раз и дальше переиспользуются.
+ */
+class TypeIndex {
+    private final Map<String, String> keys = new HashMap<>();
+    private final Map<String, List<GameObject>> buckets = new HashMap<>();
+
+    /**
+     * Возвращает ключ корзины для типа, подписи или субъекта формулы.
+     */
+    String key(String value) {
+        if (value == null) {
+            return "";
+        }
+        String key = keys.get(value);
+        if (key == null) {
+            String folded = value.toLowerCase(Locale.ROOT);
+            key = keys.computeIfAbsent(folded, k -> k);
+            keys.put(value, key);
+        }
+        return key;
+    }
+
+    void add(GameObject object) {
+        String typeKey = key(object.getType());
+        String labelKey = key(object.getLabel());
+        buckets.computeIfAbsent(typeKey, k -> new ArrayList<>()).add(object);
+        if (!labelKey.equals(typeKey)) {
+            buckets.computeIfAbsent(labelKey, k -> new ArrayList<>()).add(object);
+        }
+    }
+
+    void remove(GameObject object) {
+        String typeKey = key(object.getType());
+        String labelKey = key(object.getLabel());
+        removeFrom(typeKey, object);
+        if (!labelKey.equals(typeKey)) {
+            removeFrom(labelKey, object);
+        }
+    }
+
+    void clear() {
+        buckets.clear();
+    }
+
+    List<GameObject> objectsOf(String key) {
+        List<GameObject> bucket = buckets.get(key);
+        return bucket == null ? Collections.emptyList() : bucket;
+    }
+
+    private void removeFrom(String key, GameObject object) {
+        List<GameObject> bucket = buckets.get(key);
+        if (bucket != null) {
+            bucket.remove(object);
+            if (bucket.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package game.model;
+
+import java.util.Arrays;
+
+/**
+ * Неизменяемый индекс клеток для снимка мира: какие объекты снимка стоят в каждой клетке.
+ * Строка поля хранится одним массивом: первые (columns + 1) элементов - смещения
+ * начала каждой клетки, дальше - индексы объектов. Строки, в которых ничего не
+ * менялось, разделяются между снимками, как блоки самого снимка.
+ */
+public final class CellOccupancy {
+    private static final int[] NONE = new int[0];
+
+    private final int columns;
+    private final int[][] rows;
+    // Objects outside the grid are always returned, there are only a few of them
+    private final int[] outside;
+
+    /**
+     * @param rows    per row: offsets of each cell, then the object indices (null for an empty row)
+     * @param outside indices of the objects outside the grid
+     */
+    public CellOccupancy(int columns, int[][] rows, int[] outside) {
+        this.columns = columns;
+        this.rows = rows;
+        this.outside = outside;
+    }
+
+    /**
+     * Indices of the objects in the cells [minX, maxX] x [minY, maxY] (bounds inclusive,
+     * clamped to the grid) and of every object outside the grid, in world order.
+     */
+    public int[] indicesIn(int minX, int minY, int maxX, int maxY) {
+        int fromX = Math.max(0, minX);
+        int toX = Math.min(columns - 1, maxX);
+        int fromY = Math.max(0, minY);
+        int toY = Math.min(rows.length - 1, maxY);
+
+        int count = outside.length;
+        for (int y = fromY; y <= toY; y++) {
+            int[] row = rows[y];
+            if (row != null && fromX <= toX) {
+                count += row[toX + 1] - row[fromX];
+            }
+        }
+        if (count == 0) {
+            return NONE;
+        }
+
+        int[] result = Arrays.copyOf(outside, count);
+        int next = outside.length;
+        for (int y = fromY; y <= toY; y++) {
+            int[] row = rows[y];
+            if (row != null && fromX <= toX) {
+                int from = row[fromX];
+                int length = row[toX + 1] - from;
+                System.arraycopy(row, from, result, next, length);
+                next += length;
+            }
+        }
+        // Overlapping objects are drawn in world order
+        Arrays.sort(result);
+        return result;
+    }
+}
@@ -1,6 +1,7 @@
 package game.model;
 
 import gui.system.saving.ResourceLoader;
+import gui.ui.drawing.SpriteCache;
 
 import java.awt.*;
 import java.io.IOException;
@@ -8,7 +9,7 @@ import java.io.Serializable;
 import java.util.EnumSet;
 import java.util.Set;
 
-public class GameObject implements Serializable {
+public class GameObject implements Serializable, Cloneable {
     private int cellX;
     private int cellY;
     private transient Image texture;
@@ -16,6 +17,11 @@ public class GameObject implements Serializable {
     private String label;
     private String type; // Тип объекта (например, "wall", "baba", "flag")
     private Set<ObjectProperty> properties = EnumSet.noneOf(ObjectProperty.class);
+    private transient PositionListener positionListener;
+
+    // Пока объект находится в мире, его координаты и свойства хранятся в WorldStore
+    private transient WorldStore store;
+    private transient int slot = -1;
 
     public GameObject(int x, int y, String texturePath, String label, String type) {
         this.cellX = x;
@@ -30,13 +36,36 @@ public class GameObject implements Serializable {
     }
 
     public void setPosition(int x, int y) {
-        this.cellX = x;
-        this.cellY = y;
+        int oldX = getX();
+        int oldY = getY();
+        if (store != null) {
+            store.setPosition(slot, x, y);
+        } else {
+            this.cellX = x;
+            this.cellY = y;
+        }
+        if (positionListener != null && (oldX != x || oldY != y)) {
+            positionListener.onPositionChanged(this, oldX, oldY);
+        }
+    }
+
+    public void setPositionListener(PositionListener listener) {
+        this.positionListener = listener;
     }
 
     public int[] getPosition() {
-        return new int[]{cellX, cellY};
+        return new int[]{getX(), getY()};
+    }
+
+    // Координаты без выделения массива - для горячих путей движка и отрисовки
+    public int getX() {
+        return store != null ? store.x(slot) : cellX;
+    }
+
+    public int getY() {
+        return store != null ? store.y(slot) : cellY;
     }
+
     public void setTexture(Image texture, String path) {
         this.texture = texture;
         this.texturePath = path;
@@ -47,6 +76,10 @@ public class GameObject implements Serializable {
         return texture;
     }
 
+    public String getTexturePath() {
+        return texturePath;
+    }
+
     public String getType() {
         return type;
     }
@@ -57,29 +90,130 @@ public class GameObject implements Serializable {
 
     // Методы для управления свойствами
     public boolean hasProperty(ObjectProperty property) {
+        if (store != null) {
+            return (store.mask(slot) & property.bit()) != 0;
+        }
         return properties.contains(property);
     }
 
     public void addProperty(ObjectProperty property) {
-        properties.add(property);
+        if (store != null) {
+            store.setMask(slot, store.mask(slot) | property.bit());
+        } else {
+            properties.add(property);
+        }
     }
 
     public void removeProperty(ObjectProperty property) {
-        properties.remove(property);
+        if (store != null) {
+            store.setMask(slot, store.mask(slot) & ~property.bit());
+        } else {
+            properties.remove(property);
+        }
     }
 
     public void clearProperties() {
+        if (store != null) {
+            store.setMask(slot, 0);
+        } else {
+            properties.clear();
+        }
+    }
+
+    /**
+     * Свойства объекта в виде битовой маски (бит i - свойство с ordinal() == i).
+     */
+    public int getPropertyMask() {
+        if (store != null) {
+            return store.mask(slot);
+        }
+        int mask = 0;
+        for (ObjectProperty property : properties) {
+            mask |= property.bit();
+        }
+        return mask;
+    }
+
+    boolean isAttached() {
+        return store != null;
+    }
+
+    boolean isAttachedTo(WorldStore world) {
+        return store == world;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    void attach(WorldStore world, int newSlot) {
+        this.store = world;
+        this.slot = newSlot;
+    }
+
+    /**
+     * Копирует состояние из хранилища обратно в поля объекта и отвязывает его от мира.
+     */
+    void detach() {
+        syncFromStore();
+        this.store = null;
+        this.slot = -1;
+    }
+
+    private void syncFromStore() {
+        if (store == null) {
+            return;
+        }
+        setDetachedState(store.x(slot), store.y(slot), store.mask(slot));
+    }
+
+    /**
+     * Отвязанная от мира копия объекта с заданными координатами и свойствами.
+     * Текстура, подпись и тип общие с оригиналом - они не меняются.
+     */
+    public GameObject detachedCopy(int x, int y, int mask) {
+        GameObject copy;
+        try {
+            copy = (GameObject) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+        copy.store = null;
+        copy.slot = -1;
+        copy.positionListener = null;
+        copy.properties = EnumSet.noneOf(ObjectProperty.class);
+        copy.setDetachedState(x, y, mask);
+        return copy;
+    }
+
+    private void setDetachedState(int x, int y, int mask) {
+        cellX = x;
+        cellY = y;
         properties.clear();
+        for (ObjectProperty property : ObjectProperty.values()) {
+            if ((mask & property.bit()) != 0) {
+                properties.add(property);
+            }
+        }
     }
 
     public void draw(Graphics2D g, int cellSize, Point start) {
+        drawAt(g, cellSize, start.x + getX() * cellSize, start.y + getY() * cellSize);
+    }
+
+    /**
+     * Рисует объект в клетке, левый верхний угол которой задан в пикселях
+     * (позиция может быть и промежуточной, при анимации перемещения).
+     */
+    public void drawAt(Graphics2D g, int cellSize, int cellLeft, int cellTop) {
         int objectWidth = (int) (cellSize * 0.8);
         int objectHeight = (int) (cellSize * 0.8);
-        int x = start.x + cellX * cellSize + (cellSize - objectWidth) / 2;
-        int y = start.y + cellY * cellSize + (cellSize - objectHeight) / 2;
+        int x = cellLeft + (cellSize - objectWidth) / 2;
+        int y = cellTop + (cellSize - objectHeight) / 2;
 
         if (texture != null) {
-            g.drawImage(texture, x, y, objectWidth, objectHeight, null);
+            // Текстура уже приведена к размеру объекта: копирование без масштабирования
+            g.drawImage(SpriteCache.getInstance().getScaled(g, texture, objectWidth, objectHeight), x, y, null);
         } else {
             // Запасной вариант отрисовки с текстом
             g.setColor(Color.GRAY);
@@ -93,6 +227,7 @@ public class GameObject implements Serializable {
         }
     }
     private void writeObject(java.io.ObjectOutputStream out) throws IOException {
+        syncFromStore();
         out.defaultWriteObject();
     }
 
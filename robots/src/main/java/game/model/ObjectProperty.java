@@ -6,5 +6,10 @@ public enum ObjectProperty {
     PUSHABLE,  // Объект можно толкать
     STOP,      // Объект нельзя пройти
     WIN,       // Объект представляет собой цель
-    KILL       // Объект убивает игрока при контакте
+    KILL;      // Объект убивает игрока при контакте
+
+    // Бит свойства в маске (ObjectProperty помещается в один int)
+    public int bit() {
+        return 1 << ordinal();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package game.model;
+
+/**
+ * Слушатель перемещений игрового объекта.
+ * Используется игровым миром, чтобы поддерживать индексы клеток в актуальном состоянии.
+ */
+public interface PositionListener {
+    void onPositionChanged(GameObject object, int oldX, int oldY);
+}
@@ -0,0 +1,213 @@
+package game.model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Неизменяемый снимок мира на момент окончания хода.
+ * Движок публикует снимок после каждого такта, в котором что-то изменилось;
+ * отрисовка, сохранение и прочие читатели работают со снимком без копирования
+ * и блокировок и не видят мир в середине хода.
+ *
+ * Данные разбиты на блоки по {@link #CHUNK_SIZE} объектов. Новый снимок заново
+ * копирует только блоки, в которых что-то изменилось, а остальные берёт из
+ * предыдущего снимка как есть, поэтому ход стоит O(изменённых блоков), а не O(мира).
+ * Кроме текущих координат снимок помнит блоки предыдущего снимка, чтобы
+ * перемещение можно было плавно анимировать.
+ */
+public final class WorldSnapshot {
+    static final int CHUNK_SHIFT = 8;
+    public static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    public static final WorldSnapshot EMPTY = new WorldSnapshot(0, 0, new Chunk[0], new Chunk[0], null);
+
+    /**
+     * Неизменяемый блок подряд идущих объектов; один и тот же блок может входить в несколько снимков.
+     */
+    static final class Chunk {
+        final int size;
+        final int[] xs;
+        final int[] ys;
+        final int[] masks;
+        final GameObject[] handles;
+
+        Chunk(int size, int[] xs, int[] ys, int[] masks, GameObject[] handles) {
+            this.size = size;
+            this.xs = xs;
+            this.ys = ys;
+            this.masks = masks;
+            this.handles = handles;
+        }
+    }
+
+    private final long version;
+    private final int size;
+    private final Chunk[] chunks;
+    // Blocks of the previous snapshot (not the snapshot itself, so old versions are not kept alive)
+    private final Chunk[] previousChunks;
+    // Objects by cell, if the engine published them with the snapshot
+    private final CellOccupancy cells;
+    private List<GameObject> objects;
+
+    WorldSnapshot(long version, int size, Chunk[] chunks, Chunk[] previousChunks, CellOccupancy cells) {
+        this.version = version;
+        this.size = size;
+        this.chunks = chunks;
+        this.previousChunks = previousChunks;
+        this.cells = cells;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int x(int index) {
+        return chunks[index >> CHUNK_SHIFT].xs[index & CHUNK_MASK];
+    }
+
+    public int y(int index) {
+        return chunks[index >> CHUNK_SHIFT].ys[index & CHUNK_MASK];
+    }
+
+    public int mask(int index) {
+        return chunks[index >> CHUNK_SHIFT].masks[index & CHUNK_MASK];
+    }
+
+    public boolean hasProperty(int index, ObjectProperty property) {
+        return (mask(index) & property.bit()) != 0;
+    }
+
+    /**
+     * Позиция объекта в предыдущем снимке (или текущая, если объект новый или сместился в мире).
+     */
+    public int previousX(int index) {
+        Chunk previous = previousChunkOf(index);
+        return previous != null ? previous.xs[index & CHUNK_MASK] : x(index);
+    }
+
+    public int previousY(int index) {
+        Chunk previous = previousChunkOf(index);
+        return previous != null ? previous.ys[index & CHUNK_MASK] : y(index);
+    }
+
+    /**
+     * Объект для отрисовки (текстура, подпись). Его живые координаты могут уже
+     * отличаться от снимка - для позиции используйте x(index) и y(index).
+     */
+    public GameObject handle(int index) {
+        return chunks[index >> CHUNK_SHIFT].handles[index & CHUNK_MASK];
+    }
+
+    /**
+     * Индексы объектов, стоящих в клетках [minX, maxX] x [minY, maxY] (границы включены),
+     * в порядке мира. Объекты вне поля входят всегда. Если снимок опубликован без
+     * индекса клеток, возвращаются все индексы.
+     */
+    public int[] indicesIn(int minX, int minY, int maxX, int maxY) {
+        if (cells != null) {
+            return cells.indicesIn(minX, minY, maxX, maxY);
+        }
+        int[] all = new int[size];
+        for (int i = 0; i < size; i++) {
+            all[i] = i;
+        }
+        return all;
+    }
+
+    /**
+     * Объекты снимка в порядке мира, без копирования (список только для чтения).
+     */
+    public List<GameObject> objects() {
+        if (objects == null) {
+            objects = new AbstractList<>() {
+                @Override
+                public GameObject get(int index) {
+                    if (index < 0 || index >= size) {
+                        throw new IndexOutOfBoundsException(index);
+                    }
+                    return handle(index);
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return objects;
+    }
+
+    /**
+     * Отвязанные копии объектов с координатами и свойствами этого снимка - например,
+     * для сохранения, пока игровой цикл продолжает менять живые объекты.
+     */
+    public List<GameObject> detachedObjects() {
+        List<GameObject> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(handle(i).detachedCopy(x(i), y(i), mask(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Индексы объектов, у которых координаты или свойства отличаются от снимка older.
+     * Блоки, общие с older, пропускаются без сравнения: движок копирует блок, только
+     * когда в нём что-то меняется, поэтому проверка стоит O(изменённых блоков).
+     * Возвращает null, если между снимками менялся состав мира (объекты добавлялись или удалялись).
+     */
+    public int[] changedSince(WorldSnapshot older) {
+        if (older.size != size) {
+            return null;
+        }
+        int[] changed = new int[16];
+        int count = 0;
+        for (int k = 0; k < chunks.length; k++) {
+            Chunk now = chunks[k];
+            Chunk before = older.chunks[k];
+            if (now == before) {
+                continue;
+            }
+            for (int i = 0; i < now.size; i++) {
+                if (now.handles[i] != before.handles[i]) {
+                    return null;
+                }
+                if (now.xs[i] != before.xs[i] || now.ys[i] != before.ys[i] || now.masks[i] != before.masks[i]) {
+                    if (count == changed.length) {
+                        changed = Arrays.copyOf(changed, count * 2);
+                    }
+                    changed[count++] = (k << CHUNK_SHIFT) | i;
+                }
+            }
+        }
+        return Arrays.copyOf(changed, count);
+    }
+
+    int chunkCount() {
+        return chunks.length;
+    }
+
+    Chunk chunk(int chunkIndex) {
+        return chunks[chunkIndex];
+    }
+
+    private Chunk previousChunkOf(int index) {
+        int chunkIndex = index >> CHUNK_SHIFT;
+        if (chunkIndex >= previousChunks.length) {
+            return null;
+        }
+        Chunk previous = previousChunks[chunkIndex];
+        Chunk current = chunks[chunkIndex];
+        int offset = index & CHUNK_MASK;
+        if (previous == current || offset >= previous.size || previous.handles[offset] != current.handles[offset]) {
+            return null;
+        }
+        return previous;
+    }
+}
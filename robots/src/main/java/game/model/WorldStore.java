@@ -0,0 +1,169 @@
+package game.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Колоночное хранилище игрового мира.
+ * Координаты и маска свойств всех объектов лежат в параллельных
+ * массивах примитивов; GameObject, добавленный в мир, становится лишь ручкой
+ * (handle) на свою ячейку. Проверки движка идут простыми циклами по массивам.
+ */
+public class WorldStore {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[] xs = new int[INITIAL_CAPACITY];
+    private int[] ys = new int[INITIAL_CAPACITY];
+    private int[] masks = new int[INITIAL_CAPACITY];
+    private GameObject[] handles = new GameObject[INITIAL_CAPACITY];
+    private int size = 0;
+
+    // Blocks changed since the last snapshot and the blocks that snapshot consisted of
+    private final BitSet dirtyChunks = new BitSet();
+    private WorldSnapshot.Chunk[] lastChunks = new WorldSnapshot.Chunk[0];
+
+    /**
+     * Adds the object to the world; from now on its position and properties live here.
+     */
+    public void add(GameObject object) {
+        if (object.isAttached()) {
+            throw new IllegalArgumentException("Object already belongs to a world: " + object.getLabel());
+        }
+        ensureCapacity(size + 1);
+        int slot = size++;
+        xs[slot] = object.getX();
+        ys[slot] = object.getY();
+        masks[slot] = object.getPropertyMask();
+        handles[slot] = object;
+        object.attach(this, slot);
+        dirtyChunks.set(slot >> WorldSnapshot.CHUNK_SHIFT);
+    }
+
+    /**
+     * Removes the object, keeping the order of the remaining objects.
+     */
+    public boolean remove(GameObject object) {
+        if (!object.isAttachedTo(this)) {
+            return false;
+        }
+        int slot = object.getSlot();
+        object.detach();
+        // Every following object shifts down by one slot
+        markDirty(slot, size - 1);
+
+        int tail = size - slot - 1;
+        if (tail > 0) {
+            System.arraycopy(xs, slot + 1, xs, slot, tail);
+            System.arraycopy(ys, slot + 1, ys, slot, tail);
+            System.arraycopy(masks, slot + 1, masks, slot, tail);
+            System.arraycopy(handles, slot + 1, handles, slot, tail);
+            for (int i = slot; i < size - 1; i++) {
+                handles[i].attach(this, i);
+            }
+        }
+        handles[--size] = null;
+        return true;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            handles[i].detach();
+        }
+        Arrays.fill(handles, 0, size, null);
+        markDirty(0, size);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int x(int slot) {
+        return xs[slot];
+    }
+
+    public int y(int slot) {
+        return ys[slot];
+    }
+
+    public int mask(int slot) {
+        return masks[slot];
+    }
+
+    public GameObject handle(int slot) {
+        return handles[slot];
+    }
+
+    public List<GameObject> objects() {
+        return new ArrayList<>(Arrays.asList(handles).subList(0, size));
+    }
+
+    /**
+     * Slot of the object in this world, or -1 if it does not belong to it.
+     */
+    public int slotOf(GameObject object) {
+        return object.isAttachedTo(this) ? object.getSlot() : -1;
+    }
+
+    public WorldSnapshot snapshot(long version) {
+        return snapshot(version, null);
+    }
+
+    /**
+     * Publishes the current state as an immutable snapshot. Blocks of objects untouched
+     * since the previous call are shared with the previous snapshot instead of being copied.
+     * The cell occupancy, if given, must describe the same state in slot numbers.
+     */
+    public WorldSnapshot snapshot(long version, CellOccupancy cells) {
+        WorldSnapshot.Chunk[] chunks = new WorldSnapshot.Chunk[(size + WorldSnapshot.CHUNK_SIZE - 1) >> WorldSnapshot.CHUNK_SHIFT];
+        for (int k = 0; k < chunks.length; k++) {
+            if (!dirtyChunks.get(k) && k < lastChunks.length) {
+                chunks[k] = lastChunks[k];
+            } else {
+                chunks[k] = copyChunk(k);
+            }
+        }
+        dirtyChunks.clear();
+        WorldSnapshot snapshot = new WorldSnapshot(version, size, chunks, lastChunks, cells);
+        lastChunks = chunks;
+        return snapshot;
+    }
+
+    private WorldSnapshot.Chunk copyChunk(int chunkIndex) {
+        int from = chunkIndex << WorldSnapshot.CHUNK_SHIFT;
+        int to = Math.min(size, from + WorldSnapshot.CHUNK_SIZE);
+        return new WorldSnapshot.Chunk(to - from,
+                Arrays.copyOfRange(xs, from, to),
+                Arrays.copyOfRange(ys, from, to),
+                Arrays.copyOfRange(masks, from, to),
+                Arrays.copyOfRange(handles, from, to));
+    }
+
+    private void markDirty(int fromSlot, int toSlot) {
+        dirtyChunks.set(fromSlot >> WorldSnapshot.CHUNK_SHIFT, (toSlot >> WorldSnapshot.CHUNK_SHIFT) + 1);
+    }
+
+    void setPosition(int slot, int x, int y) {
+        xs[slot] = x;
+        ys[slot] = y;
+        dirtyChunks.set(slot >> WorldSnapshot.CHUNK_SHIFT);
+    }
+
+    void setMask(int slot, int mask) {
+        masks[slot] = mask;
+        dirtyChunks.set(slot >> WorldSnapshot.CHUNK_SHIFT);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= xs.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, xs.length * 2);
+        xs = Arrays.copyOf(xs, newCapacity);
+        ys = Arrays.copyOf(ys, newCapacity);
+        masks = Arrays.copyOf(masks, newCapacity);
+        handles = Arrays.copyOf(handles, newCapacity);
+    }
+}
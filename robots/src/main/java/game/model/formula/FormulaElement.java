@@ -2,6 +2,7 @@ package game.model.formula;
 
 import game.model.GameObject;
 import game.model.ObjectProperty;
+import gui.ui.drawing.FormulaTileCache;
 
 import java.awt.*;
 
@@ -16,6 +17,8 @@ public class FormulaElement extends GameObject {
     private String value;
     private ObjectProperty correspondingProperty; // Only for PROPERTY type elements
     private Color backgroundColor;
+    private transient Image tile;
+    private transient int tileCellSize = -1;
 
     public FormulaElement(int x, int y, String texturePath, ElementType elementType, String value) {
         super(x, y, texturePath, value, "formula");
@@ -33,67 +36,25 @@ public class FormulaElement extends GameObject {
 
     public void setColor(Color color) {
         this.backgroundColor = color;
+        this.tile = null;
     }
 
     @Override
-    public void draw(Graphics2D g, int cellSize, Point start) {
+    public void drawAt(Graphics2D g, int cellSize, int cellLeft, int cellTop) {
         int objectWidth = (int) (cellSize * 0.8);
         int objectHeight = (int) (cellSize * 0.8);
-        int x = start.x + getPosition()[0] * cellSize + (cellSize - objectWidth) / 2;
-        int y = start.y + getPosition()[1] * cellSize + (cellSize - objectHeight) / 2;
-
-        // Draw background rectangle with element type color
-        g.setColor(backgroundColor != null ? backgroundColor : Color.GRAY);
-        g.fillRect(x, y, objectWidth, objectHeight);
-
-        // Draw border
-        g.setColor(Color.BLACK);
-        g.drawRect(x, y, objectWidth, objectHeight);
-
-        // Draw text
-        g.setColor(Color.WHITE);
-        // Scale font to fit in box
-        Font originalFont = g.getFont();
-        int fontSize = getFittingFontSize(g, getValue(), objectWidth, objectHeight);
-        g.setFont(new Font(originalFont.getName(), Font.BOLD, fontSize));
-
-        // Center text
-        FontMetrics fm = g.getFontMetrics();
-        int textWidth = fm.stringWidth(getValue());
-        int textHeight = fm.getHeight();
-        g.drawString(getValue(), x + (objectWidth - textWidth) / 2,
-                y + (objectHeight + textHeight) / 2 - fm.getDescent());
-
-        // Restore original font
-        g.setFont(originalFont);
-    }
-
-    private int getFittingFontSize(Graphics g, String text, int width, int height) {
-        Font baseFont = g.getFont();
-        int minSize = 4;   // теперь можно очень мелко
-        int maxSize = 30;
-        int fittedSize = minSize;
-
-        while (minSize <= maxSize) {
-            int mid = (minSize + maxSize) / 2;
-            Font testFont = new Font(baseFont.getName(), Font.BOLD, mid);
-            FontMetrics fm = g.getFontMetrics(testFont);
-
-            boolean fitsWidth  = fm.stringWidth(text) <= width;
-            boolean fitsHeight = fm.getHeight() <= height;
-
-            if (fitsWidth && fitsHeight) {
-                fittedSize = mid;     // этот размер влезает, запоминаем его
-                minSize = mid + 1;    // пробуем найти побольше
-            } else {
-                maxSize = mid - 1;    // слишком большой — уменьшаем
-            }
+        int x = cellLeft + (cellSize - objectWidth) / 2;
+        int y = cellTop + (cellSize - objectHeight) / 2;
+
+        // Готовая плитка (фон, рамка, текст) общая для всех элементов с тем же словом и цветом
+        if (tile == null || tileCellSize != cellSize) {
+            tile = FormulaTileCache.getInstance().getTile(g, getValue(),
+                    backgroundColor != null ? backgroundColor : Color.GRAY, objectWidth, objectHeight);
+            tileCellSize = cellSize;
         }
-
-        return fittedSize - 2;
+        g.drawImage(tile, x, y, null);
     }
 
-
     public ElementType getElementType() {
         return elementType;
     }
@@ -105,4 +66,8 @@ public class FormulaElement extends GameObject {
     public ObjectProperty getCorrespondingProperty() {
         return correspondingProperty;
     }
+
+    public Color getBackgroundColor() {
+        return backgroundColor;
+    }
 }
\ No newline at end of file
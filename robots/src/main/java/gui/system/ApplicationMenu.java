@@ -4,6 +4,7 @@ import gui.MainApplicationFrame;
 import gui.system.localization.Language;
 import gui.system.localization.LocaleChangeListener;
 import gui.system.localization.LocalizationManager;
+import gui.system.saving.Autosaver;
 import gui.system.saving.SaveLoadDialog;
 import log.WindowLogger;
 
@@ -24,6 +25,9 @@ public class ApplicationMenu extends JMenuBar implements LocaleChangeListener {
     private JMenuItem saveMenuItem;
     private JMenuItem loadMenuItem;
     private JMenu saveLoadMenu;  // Храним ссылку на меню для сохранения и загрузки
+    private JCheckBoxMenuItem autosaveMenuItem;
+    private JMenuItem loadAutosaveMenuItem;
+    private Autosaver autosaver;
 
     public ApplicationMenu(MainApplicationFrame mainFrame) {
         this.mainFrame = mainFrame;
@@ -48,6 +52,11 @@ public class ApplicationMenu extends JMenuBar implements LocaleChangeListener {
 
         saveLoadMenu.add(saveMenuItem);
         saveLoadMenu.add(loadMenuItem);
+        saveLoadMenu.addSeparator();
+        autosaveMenuItem = createAutosaveMenuItem();
+        loadAutosaveMenuItem = createLoadAutosaveMenuItem();
+        saveLoadMenu.add(autosaveMenuItem);
+        saveLoadMenu.add(loadAutosaveMenuItem);
 
         return saveLoadMenu;
     }
@@ -68,6 +77,29 @@ public class ApplicationMenu extends JMenuBar implements LocaleChangeListener {
         return loadItem;
     }
 
+    private JCheckBoxMenuItem createAutosaveMenuItem() {
+        JCheckBoxMenuItem autosaveItem = new JCheckBoxMenuItem(LocalizationManager.getInstance().getString("menu.autosave"));
+        autosaveItem.addActionListener(event -> {
+            if (autosaver == null) {
+                autosaver = new Autosaver(() -> mainFrame.getGameWindow().getGameVisualizer().getSnapshot());
+            }
+            if (autosaveItem.isSelected()) {
+                autosaver.start(Autosaver.DEFAULT_INTERVAL_MILLIS);
+            } else {
+                autosaver.stop();
+            }
+        });
+        return autosaveItem;
+    }
+
+    private JMenuItem createLoadAutosaveMenuItem() {
+        JMenuItem loadItem = new JMenuItem(LocalizationManager.getInstance().getString("menu.autosave.load"));
+        loadItem.addActionListener(event -> {
+            SaveLoadDialog.loadAutosave(mainFrame, mainFrame.getGameWindow().getGameVisualizer());
+        });
+        return loadItem;
+    }
+
     private JMenu createLookAndFeelMenu() {
         lookAndFeelMenu = new JMenu(LocalizationManager.getInstance().getString("menu.view"));
         lookAndFeelMenu.setMnemonic(KeyEvent.VK_V);
@@ -164,7 +196,7 @@ public class ApplicationMenu extends JMenuBar implements LocaleChangeListener {
             SwingUtilities.updateComponentTreeUI(mainFrame);
         } catch (ClassNotFoundException | InstantiationException
                  | IllegalAccessException | UnsupportedLookAndFeelException e) {
-            WindowLogger.error(LocalizationManager.getInstance().getString("theme.system.exception.while.loading") + e.getMessage());
+            WindowLogger.error("{}{}", LocalizationManager.getInstance().getString("theme.system.exception.while.loading"), e.getMessage());
         }
     }
 
@@ -219,6 +251,12 @@ public class ApplicationMenu extends JMenuBar implements LocaleChangeListener {
         if (loadMenuItem != null) {
             loadMenuItem.setText(LocalizationManager.getInstance().getString("menu.load"));
         }
+        if (autosaveMenuItem != null) {
+            autosaveMenuItem.setText(LocalizationManager.getInstance().getString("menu.autosave"));
+        }
+        if (loadAutosaveMenuItem != null) {
+            loadAutosaveMenuItem.setText(LocalizationManager.getInstance().getString("menu.autosave.load"));
+        }
 
         // Обновляем заголовок подменю SaveLoad
         if (saveLoadMenu != null) {
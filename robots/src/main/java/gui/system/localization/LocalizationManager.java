@@ -36,7 +36,7 @@ public class LocalizationManager {
         try {
             bundle = ResourceBundle.getBundle(BUNDLE_NAME, currentLanguage.getLocale());
         } catch (MissingResourceException e) {
-            WindowLogger.error("Failed to load resource bundle: " + e.getMessage());
+            WindowLogger.error("Failed to load resource bundle: {}", e.getMessage());
             bundle = new ListResourceBundle() {
                 @Override
                 protected Object[][] getContents() {
@@ -50,7 +50,7 @@ public class LocalizationManager {
         try {
             return bundle.getString(key);
         } catch (MissingResourceException e) {
-            WindowLogger.error("Missing translation key: " + key);
+            WindowLogger.error("Missing translation key: {}", key);
             return "!" + key + "!";
         }
     }
@@ -0,0 +1,266 @@
+package gui.system.saving;
+
+import game.model.GameObject;
+import game.model.GameState;
+import game.model.ObjectProperty;
+import game.model.WorldSnapshot;
+import log.WindowLogger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Periodic autosave: one full base save (the usual binary format) followed by small
+ * delta records appended to a journal. A delta lists only the objects whose position
+ * or properties changed since the previous checkpoint, so a checkpoint on a huge level
+ * costs as much as the changes since the last one.
+ *
+ * Files of one generation are autosave-N.sav (base) and autosave-N.delta (journal).
+ * When the journal outgrows the base, or the set of objects changes (a level was loaded),
+ * a new generation is written and the old one is deleted. Everything runs on the
+ * "autosave" daemon thread; the game only hands over its immutable snapshots.
+ */
+public class Autosaver {
+    public static final long DEFAULT_INTERVAL_MILLIS = 5000;
+    static final String AUTOSAVE_DIR = "autosave";
+
+    private static final String FILE_PREFIX = "autosave-";
+    private static final String BASE_SUFFIX = ".sav";
+    private static final String DELTA_SUFFIX = ".delta";
+    private static final int DELTA_MAGIC = 0x52534444; // "RSDD"
+    private static final int DELTA_HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    private static final ObjectProperty[] PROPERTIES = ObjectProperty.values();
+
+    private final Supplier<WorldSnapshot> snapshots;
+    private final Path directory;
+    private ScheduledExecutorService executor;
+
+    // Last checkpoint and the files it went to; used only under the autosaver's lock
+    private WorldSnapshot checkpoint;
+    private long generation = -1;
+    private long baseBytes;
+    private long deltaBytes;
+
+    public Autosaver(Supplier<WorldSnapshot> snapshots) {
+        this(snapshots, GameSaver.getSaveDir().resolve(AUTOSAVE_DIR));
+    }
+
+    Autosaver(Supplier<WorldSnapshot> snapshots, Path directory) {
+        this.snapshots = snapshots;
+        this.directory = directory;
+    }
+
+    public synchronized void start(long intervalMillis) {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::checkpointQuietly, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic saves; a checkpoint in progress is finished first.
+     */
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        executor = null;
+    }
+
+    public synchronized boolean isRunning() {
+        return executor != null;
+    }
+
+    /**
+     * Saves the current snapshot: a delta if possible, a new base otherwise.
+     */
+    synchronized void checkpoint() throws IOException {
+        WorldSnapshot snapshot = snapshots.get();
+        if (snapshot == checkpoint) {
+            return;
+        }
+        int[] changed = checkpoint == null || generation < 0 ? null : snapshot.changedSince(checkpoint);
+        if (changed == null || deltaBytes > baseBytes) {
+            writeBase(snapshot);
+        } else if (changed.length > 0) {
+            appendDelta(snapshot, changed);
+        }
+        checkpoint = snapshot;
+    }
+
+    private synchronized void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            // The next checkpoint starts over with a full base
+            generation = -1;
+            WindowLogger.error("Autosave failed", e);
+        }
+    }
+
+    private void writeBase(WorldSnapshot snapshot) throws IOException {
+        Files.createDirectories(directory);
+        // A new base always gets the highest number, so readers never pick a stale one
+        long next = Math.max(generation, latestGeneration(directory)) + 1;
+        Path base = directory.resolve(FILE_PREFIX + next + BASE_SUFFIX);
+        GameSaver.writeAtomically(base, path -> SaveFormat.write(path, snapshot, base.getFileName().toString()));
+
+        ByteBuffer header = ByteBuffer.allocate(DELTA_HEADER_SIZE).putInt(DELTA_MAGIC).putLong(next);
+        header.flip();
+        try (FileChannel channel = FileChannel.open(directory.resolve(FILE_PREFIX + next + DELTA_SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(header);
+            channel.force(false);
+        }
+
+        generation = next;
+        baseBytes = Files.size(base);
+        deltaBytes = 0;
+        deleteOtherGenerations(next);
+    }
+
+    private void appendDelta(WorldSnapshot snapshot, int[] changed) throws IOException {
+        SaveFormat.Encoder payload = new SaveFormat.Encoder();
+        payload.putVarint(changed.length);
+        int previous = 0;
+        for (int index : changed) {
+            // Indices grow, so the gap to the previous one is small
+            payload.putVarint(index - previous);
+            payload.putVarint(SaveFormat.zigzagEncode(snapshot.x(index)));
+            payload.putVarint(SaveFormat.zigzagEncode(snapshot.y(index)));
+            payload.putVarint(snapshot.mask(index));
+            previous = index;
+        }
+        ByteBuffer body = payload.toByteBuffer();
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+
+        ByteBuffer record = ByteBuffer.allocate(2 * Integer.BYTES + body.remaining());
+        record.putInt(body.remaining()).putInt((int) crc.getValue()).put(body);
+        record.flip();
+        try (FileChannel channel = FileChannel.open(directory.resolve(FILE_PREFIX + generation + DELTA_SUFFIX),
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            channel.force(false);
+        }
+        deltaBytes += record.limit();
+    }
+
+    private void deleteOtherGenerations(long keep) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*")) {
+            for (Path file : files) {
+                if (generationOf(file) != keep) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the newest autosave from the default directory, or null if there is none.
+     */
+    public static GameState readLatest() throws IOException {
+        return readLatest(GameSaver.getSaveDir().resolve(AUTOSAVE_DIR));
+    }
+
+    /**
+     * Reads the newest base and applies its deltas in order. A record torn by a crash
+     * ends the journal: everything before it is still restored. A journal with a torn
+     * or foreign header is ignored and the base is returned as it is.
+     */
+    static GameState readLatest(Path directory) throws IOException {
+        long latest = latestGeneration(directory);
+        if (latest < 0) {
+            return null;
+        }
+        GameState state = SaveFormat.read(directory.resolve(FILE_PREFIX + latest + BASE_SUFFIX));
+        Path delta = directory.resolve(FILE_PREFIX + latest + DELTA_SUFFIX);
+        if (Files.exists(delta)) {
+            // The state's list is a copy, but the objects in it are the state's own
+            applyDeltas(ByteBuffer.wrap(Files.readAllBytes(delta)), latest, state.getGameObjects());
+        }
+        return state;
+    }
+
+    private static void applyDeltas(ByteBuffer journal, long generation, List<GameObject> objects) {
+        // A header torn by a crash while the base was being written means the journal is empty
+        if (journal.remaining() < DELTA_HEADER_SIZE || journal.getInt() != DELTA_MAGIC
+                || journal.getLong() != generation) {
+            return;
+        }
+        CRC32 crc = new CRC32();
+        while (journal.remaining() >= 2 * Integer.BYTES) {
+            int length = journal.getInt();
+            int expected = journal.getInt();
+            if (length < 0 || length > journal.remaining()) {
+                break;
+            }
+            ByteBuffer body = journal.slice(journal.position(), length);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != expected) {
+                break;
+            }
+            journal.position(journal.position() + length);
+
+            int count = SaveFormat.readVarint(body);
+            int index = 0;
+            for (int i = 0; i < count; i++) {
+                index += SaveFormat.readVarint(body);
+                int x = SaveFormat.zigzagDecode(SaveFormat.readVarint(body));
+                int y = SaveFormat.zigzagDecode(SaveFormat.readVarint(body));
+                int mask = SaveFormat.readVarint(body);
+                GameObject object = objects.get(index);
+                object.setPosition(x, y);
+                object.clearProperties();
+                for (ObjectProperty property : PROPERTIES) {
+                    if ((mask & property.bit()) != 0) {
+                        object.addProperty(property);
+                    }
+                }
+            }
+        }
+    }
+
+    private static long latestGeneration(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return -1;
+        }
+        long latest = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + BASE_SUFFIX)) {
+            for (Path file : files) {
+                latest = Math.max(latest, generationOf(file));
+            }
+        }
+        return latest;
+    }
+
+    private static long generationOf(Path file) {
+        String name = file.getFileName().toString();
+        int end = name.lastIndexOf('.');
+        try {
+            return Long.parseLong(name.substring(FILE_PREFIX.length(), end));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+}
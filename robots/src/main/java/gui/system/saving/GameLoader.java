@@ -6,6 +6,7 @@ import log.WindowLogger;
 
 import java.io.BufferedInputStream;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -24,27 +25,53 @@ public class GameLoader {
             // If not found, try current directory
             savePath = Paths.get(fileName);
             if (!Files.exists(savePath)) {
-                WindowLogger.error("Save file not found: " + fileName);
+                WindowLogger.error("Save file not found: {}", fileName);
                 return false;
             }
         }
 
-        try (ObjectInputStream ois = new ObjectInputStream(
-                new BufferedInputStream(new FileInputStream(savePath.toFile())))) {
-
-            GameState state = (GameState) ois.readObject();
+        try {
+            GameState state = readGameState(savePath);
+            // Formulas and game state are recalculated as part of the rewrite
             gameVisualizer.rewriteGameObjects(state.getGameObjects());
 
-            // Recalculate formulas and game state
-            gameVisualizer.getMovementHandler().getFormulaHandler().processFormulas();
-            gameVisualizer.getMovementHandler().recalculateGameState();
-
             return true;
 
         } catch (Exception e) {
-            WindowLogger.error("Failed to load game: " + e.getMessage());
+            WindowLogger.error("Failed to load game: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Load the newest autosave (base save plus the changes recorded after it)
+     */
+    public static boolean loadAutosave(GameVisualizer gameVisualizer) {
+        try {
+            GameState state = Autosaver.readLatest();
+            if (state == null) {
+                WindowLogger.error("No autosave found");
+                return false;
+            }
+            gameVisualizer.rewriteGameObjects(state.getGameObjects());
+            return true;
+        } catch (Exception e) {
+            WindowLogger.error("Failed to load autosave: {}", e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Reads a saved game state without applying it to any game window.
+     * Saves made before the binary format are still read with Java serialization.
+     */
+    public static GameState readGameState(Path savePath) throws IOException, ClassNotFoundException {
+        if (SaveFormat.isBinary(savePath)) {
+            return SaveFormat.read(savePath);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(
+                new BufferedInputStream(new FileInputStream(savePath.toFile())))) {
+            return (GameState) ois.readObject();
+        }
+    }
 }
\ No newline at end of file
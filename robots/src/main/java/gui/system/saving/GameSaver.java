@@ -1,24 +1,36 @@
 package gui.system.saving;
 
 import game.model.GameObject;
-import game.model.GameState;
+import game.model.WorldSnapshot;
 import log.WindowLogger;
 
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class GameSaver {
     public static final String SAVE_DIR = "robotssaves";
     public static final String DEFAULT_SAVE_NAME = "save";
 
+    // Saves run one after another off the EDT, so a big world never freezes the UI
+    private static final ExecutorService SAVE_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "game-saver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     /**
      * Returns the save directory path
      */
-    private static Path getSaveDir() {
+    static Path getSaveDir() {
         // Get user home directory for cross-platform compatibility
         String userHome = System.getProperty("user.home");
         Path savePath = Paths.get(userHome, SAVE_DIR);
@@ -29,45 +41,82 @@ public class GameSaver {
                 Files.createDirectories(savePath);
             }
         } catch (IOException e) {
-            WindowLogger.error("Failed to create save directory: " + e.getMessage());
+            WindowLogger.error("Failed to create save directory: {}", e.getMessage());
         }
 
         return savePath;
     }
 
+    /**
+     * Save the world as it was in the snapshot; the game loop may keep running meanwhile
+     */
+    public static String saveGameState(WorldSnapshot snapshot, String fileName) {
+        String saveName = withExtension(fileName);
+        return save(saveName, path -> SaveFormat.write(path, snapshot, saveName));
+    }
+
+    /**
+     * Saves the snapshot on a background thread. The future completes with the save path,
+     * or with null if the save failed (the error is logged, as for synchronous saves).
+     */
+    public static CompletableFuture<String> saveGameStateAsync(WorldSnapshot snapshot, String fileName) {
+        return CompletableFuture.supplyAsync(() -> saveGameState(snapshot, fileName), SAVE_EXECUTOR);
+    }
+
     /**
      * Save game state with automatic filename
      */
     public static String saveGameState(List<GameObject> gameObjects, String fileName) {
-        if (!fileName.endsWith(".sav")) {
-            fileName += ".sav";
-        }
+        String saveName = withExtension(fileName);
+        return save(saveName, path -> SaveFormat.write(path, gameObjects, saveName));
+    }
+
+    private static String withExtension(String fileName) {
+        return fileName.endsWith(".sav") ? fileName : fileName + ".sav";
+    }
 
+    private static String save(String fileName, SaveWriter writer) {
         // Try to save in user home directory
         Path savePath = getSaveDir().resolve(fileName);
-        GameState state = new GameState(new ArrayList<>(gameObjects), fileName);
-
-        try (ObjectOutputStream oos = new ObjectOutputStream(
-                new BufferedOutputStream(new FileOutputStream(savePath.toFile())))) {
-            oos.writeObject(state);
+        try {
+            writeAtomically(savePath, writer);
             return savePath.toString();
         } catch (IOException e) {
             // If failed, try to save in current directory
             WindowLogger.debug("Failed to save in home directory, trying local directory");
             try {
-                savePath = Paths.get(fileName);
-                try (ObjectOutputStream oos = new ObjectOutputStream(
-                        new BufferedOutputStream(new FileOutputStream(savePath.toFile())))) {
-                    oos.writeObject(state);
-                    return savePath.toString();
-                }
+                savePath = Paths.get(fileName).toAbsolutePath();
+                writeAtomically(savePath, writer);
+                return savePath.toString();
             } catch (IOException e2) {
-                WindowLogger.error("Failed to save game: " + e2.getMessage());
+                WindowLogger.error("Failed to save game: {}", e2.getMessage());
                 return null;
             }
         }
     }
 
+    /**
+     * Writes a temp file next to the target and moves it over the target in one step:
+     * a crash mid-write leaves the previous save intact.
+     */
+    static void writeAtomically(Path savePath, SaveWriter writer) throws IOException {
+        Path temp = Files.createTempFile(savePath.getParent(), "." + savePath.getFileName(), ".tmp");
+        try {
+            writer.write(temp);
+            try {
+                Files.move(temp, savePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, savePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    interface SaveWriter {
+        void write(Path path) throws IOException;
+    }
+
     /**
      * Get list of all available save files from both directories
      */
@@ -0,0 +1,410 @@
+package gui.system.saving;
+
+import game.model.GameObject;
+import game.model.GameState;
+import game.model.ObjectProperty;
+import game.model.WorldSnapshot;
+import game.model.formula.FormulaElement;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Двоичный формат сохранения.
+ * <pre>
+ * int MAGIC, short VERSION, short 0
+ * строки:  число, затем длина + UTF-8
+ * имя сохранения: номер строки
+ * виды:    число, затем byte 0 - объект / 1 - элемент формулы, тип, подпись, путь к текстуре;
+ *          у элемента формулы ещё byte тип элемента, слово, byte свойство, byte есть ли цвет, int цвет RGB
+ * объекты: число, затем вид, x и y (разность с предыдущим объектом), маска свойств
+ * </pre>
+ * Числа, кроме отмеченных, записаны как varint (7 бит на байт), разности координат - в zigzag,
+ * ссылки на строки - номер + 1 (0 - null). Одинаковые объекты (все стены, все "IS") делят один
+ * вид, поэтому запись объекта обычно занимает 4 байта.
+ */
+public final class SaveFormat {
+    static final int MAGIC = 0x52534156; // "RSAV"
+    static final short VERSION = 1;
+
+    private static final byte KIND_OBJECT = 0;
+    private static final byte KIND_FORMULA = 1;
+
+    private static final ObjectProperty[] PROPERTIES = ObjectProperty.values();
+    private static final FormulaElement.ElementType[] ELEMENT_TYPES = FormulaElement.ElementType.values();
+
+    private SaveFormat() {
+    }
+
+    /**
+     * Сохраняет мир из снимка, не копируя объекты.
+     */
+    public static void write(Path path, WorldSnapshot snapshot, String saveName) throws IOException {
+        write(path, new ObjectView() {
+            @Override
+            public int size() {
+                return snapshot.size();
+            }
+
+            @Override
+            public GameObject handle(int i) {
+                return snapshot.handle(i);
+            }
+
+            @Override
+            public int x(int i) {
+                return snapshot.x(i);
+            }
+
+            @Override
+            public int y(int i) {
+                return snapshot.y(i);
+            }
+
+            @Override
+            public int mask(int i) {
+                return snapshot.mask(i);
+            }
+        }, saveName);
+    }
+
+    public static void write(Path path, List<GameObject> objects, String saveName) throws IOException {
+        write(path, new ObjectView() {
+            @Override
+            public int size() {
+                return objects.size();
+            }
+
+            @Override
+            public GameObject handle(int i) {
+                return objects.get(i);
+            }
+
+            @Override
+            public int x(int i) {
+                return objects.get(i).getX();
+            }
+
+            @Override
+            public int y(int i) {
+                return objects.get(i).getY();
+            }
+
+            @Override
+            public int mask(int i) {
+                return objects.get(i).getPropertyMask();
+            }
+        }, saveName);
+    }
+
+    /**
+     * Записан ли файл в этом формате (а не старой Java-сериализацией).
+     */
+    public static boolean isBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // читаем, пока не наберётся заголовок или не кончится файл
+            }
+            return !header.hasRemaining() && header.getInt(0) == MAGIC;
+        }
+    }
+
+    public static GameState read(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // FileChannel может отдать файл за несколько чтений
+            }
+            buffer.flip();
+        }
+        try {
+            return read(buffer);
+        } catch (RuntimeException e) {
+            // Обрезанный или испорченный файл
+            throw new IOException("Corrupted save file: " + path, e);
+        }
+    }
+
+    private static GameState read(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a binary save file");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported save format version: " + version);
+        }
+        buffer.getShort();
+
+        String[] strings = new String[readVarint(buffer)];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[readVarint(buffer)];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        String saveName = string(strings, readVarint(buffer));
+
+        int kindCount = readVarint(buffer);
+        ObjectKind[] kinds = new ObjectKind[kindCount];
+        for (int i = 0; i < kindCount; i++) {
+            kinds[i] = ObjectKind.read(buffer, strings);
+        }
+
+        int count = readVarint(buffer);
+        ArrayList<GameObject> objects = new ArrayList<>(count);
+        int x = 0;
+        int y = 0;
+        for (int i = 0; i < count; i++) {
+            ObjectKind kind = kinds[readVarint(buffer)];
+            x += zigzagDecode(readVarint(buffer));
+            y += zigzagDecode(readVarint(buffer));
+            objects.add(kind.create(x, y, readVarint(buffer)));
+        }
+        return new GameState(objects, saveName);
+    }
+
+    private static void write(Path path, ObjectView objects, String saveName) throws IOException {
+        Encoder strings = new Encoder();
+        Map<String, Integer> stringIds = new HashMap<>();
+        Encoder kinds = new Encoder();
+        Map<ByteBuffer, Integer> kindIds = new HashMap<>();
+        Encoder records = new Encoder();
+
+        int saveNameRef = stringRef(saveName, stringIds, strings);
+        int count = objects.size();
+        int previousX = 0;
+        int previousY = 0;
+        Encoder kind = new Encoder();
+        for (int i = 0; i < count; i++) {
+            kind.reset();
+            encodeKind(objects.handle(i), kind, stringIds, strings);
+            // Ключ копируется, только когда встретился новый вид
+            Integer kindId = kindIds.get(kind.toByteBuffer());
+            if (kindId == null) {
+                kindId = kindIds.size();
+                kindIds.put(ByteBuffer.wrap(kind.toByteArray()), kindId);
+                kinds.putBytes(kind.data, kind.size);
+            }
+
+            int x = objects.x(i);
+            int y = objects.y(i);
+            records.putVarint(kindId);
+            records.putVarint(zigzagEncode(x - previousX));
+            records.putVarint(zigzagEncode(y - previousY));
+            records.putVarint(objects.mask(i));
+            previousX = x;
+            previousY = y;
+        }
+
+        Encoder file = new Encoder();
+        file.putInt(MAGIC);
+        file.putShort(VERSION);
+        file.putShort((short) 0);
+        file.putVarint(stringIds.size());
+        file.putBytes(strings.data, strings.size);
+        file.putVarint(saveNameRef);
+        file.putVarint(kindIds.size());
+        file.putBytes(kinds.data, kinds.size);
+        file.putVarint(count);
+        file.putBytes(records.data, records.size);
+
+        ByteBuffer buffer = file.toByteBuffer();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            // Файл должен дойти до диска раньше, чем заменит прежнее сохранение
+            channel.force(false);
+        }
+    }
+
+    // Всё, что у объекта не меняется от клетки к клетке
+    private static void encodeKind(GameObject object, Encoder out, Map<String, Integer> stringIds, Encoder strings) {
+        boolean formula = object instanceof FormulaElement;
+        out.putByte(formula ? KIND_FORMULA : KIND_OBJECT);
+        out.putVarint(stringRef(object.getType(), stringIds, strings));
+        out.putVarint(stringRef(object.getLabel(), stringIds, strings));
+        out.putVarint(stringRef(object.getTexturePath(), stringIds, strings));
+        if (formula) {
+            FormulaElement element = (FormulaElement) object;
+            ObjectProperty property = element.getCorrespondingProperty();
+            Color color = element.getBackgroundColor();
+            out.putByte((byte) element.getElementType().ordinal());
+            out.putVarint(stringRef(element.getValue(), stringIds, strings));
+            out.putByte((byte) (property == null ? -1 : property.ordinal()));
+            out.putByte((byte) (color == null ? 0 : 1));
+            out.putInt(color == null ? 0 : color.getRGB());
+        }
+    }
+
+    private static int stringRef(String value, Map<String, Integer> stringIds, Encoder strings) {
+        if (value == null) {
+            return 0;
+        }
+        Integer id = stringIds.get(value);
+        if (id == null) {
+            id = stringIds.size();
+            stringIds.put(value, id);
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            strings.putVarint(bytes.length);
+            strings.putBytes(bytes, bytes.length);
+        }
+        return id + 1;
+    }
+
+    private static String string(String[] strings, int ref) {
+        return ref == 0 ? null : strings[ref - 1];
+    }
+
+    static int zigzagEncode(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int zigzagDecode(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    // Объекты для записи: снимок мира или обычный список
+    private interface ObjectView {
+        int size();
+
+        GameObject handle(int i);
+
+        int x(int i);
+
+        int y(int i);
+
+        int mask(int i);
+    }
+
+    /**
+     * Общая часть объектов одного вида, прочитанная из таблицы видов.
+     */
+    private static final class ObjectKind {
+        private boolean formula;
+        private String type;
+        private String label;
+        private String texturePath;
+        private FormulaElement.ElementType elementType;
+        private String value;
+        private ObjectProperty property;
+        private Color color;
+
+        static ObjectKind read(ByteBuffer buffer, String[] strings) {
+            ObjectKind kind = new ObjectKind();
+            kind.formula = buffer.get() == KIND_FORMULA;
+            kind.type = string(strings, readVarint(buffer));
+            kind.label = string(strings, readVarint(buffer));
+            kind.texturePath = string(strings, readVarint(buffer));
+            if (kind.formula) {
+                kind.elementType = ELEMENT_TYPES[buffer.get()];
+                kind.value = string(strings, readVarint(buffer));
+                byte property = buffer.get();
+                kind.property = property < 0 ? null : PROPERTIES[property];
+                boolean hasColor = buffer.get() != 0;
+                int rgb = buffer.getInt();
+                kind.color = hasColor ? new Color(rgb, true) : null;
+            }
+            return kind;
+        }
+
+        GameObject create(int x, int y, int mask) {
+            GameObject object;
+            if (formula) {
+                FormulaElement element = new FormulaElement(x, y, texturePath, elementType, value, property);
+                if (color != null) {
+                    element.setColor(color);
+                }
+                object = element;
+            } else {
+                object = new GameObject(x, y, texturePath, label, type);
+            }
+            object.clearProperties();
+            for (ObjectProperty p : PROPERTIES) {
+                if ((mask & p.bit()) != 0) {
+                    object.addProperty(p);
+                }
+            }
+            return object;
+        }
+    }
+
+    /**
+     * Растущий буфер байтов для записи.
+     */
+    static final class Encoder {
+        private byte[] data = new byte[256];
+        private int size = 0;
+
+        void reset() {
+            size = 0;
+        }
+
+        void putByte(byte value) {
+            ensure(1);
+            data[size++] = value;
+        }
+
+        void putShort(short value) {
+            putByte((byte) (value >> 8));
+            putByte((byte) value);
+        }
+
+        void putInt(int value) {
+            putShort((short) (value >> 16));
+            putShort((short) value);
+        }
+
+        void putVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                putByte((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            putByte((byte) value);
+        }
+
+        void putBytes(byte[] bytes, int length) {
+            ensure(length);
+            System.arraycopy(bytes, 0, data, size, length);
+            size += length;
+        }
+
+        ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(data, 0, size);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(data, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > data.length) {
+                data = Arrays.copyOf(data, Math.max(size + extra, data.length * 2));
+            }
+        }
+    }
+}
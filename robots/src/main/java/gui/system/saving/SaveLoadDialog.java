@@ -16,12 +16,20 @@ public class SaveLoadDialog {
         );
 
         if (saveName != null && !saveName.trim().isEmpty()) {
-            String savePath = GameSaver.saveGameState(gameVisualizer.getGameObjects(), saveName);
-            if (savePath != null) {
-                MessageDisplayer.showCenteredMessage(parentFrame, "message.saved");
-            } else {
-                MessageDisplayer.showCenteredMessage(parentFrame, "message.save.failed");
-            }
+            // The snapshot is immutable: the game keeps running while it is written
+            GameSaver.saveGameStateAsync(gameVisualizer.getSnapshot(), saveName)
+                    .whenComplete((savePath, error) -> SwingUtilities.invokeLater(() ->
+                            MessageDisplayer.showCenteredMessage(parentFrame,
+                                    savePath != null ? "message.saved" : "message.save.failed")));
+        }
+    }
+
+    public static void loadAutosave(JFrame parentFrame, GameVisualizer gameVisualizer) {
+        if (GameLoader.loadAutosave(gameVisualizer)) {
+            gameVisualizer.repaint();
+            MessageDisplayer.showCenteredMessage(parentFrame, "message.loaded");
+        } else {
+            MessageDisplayer.showCenteredMessage(parentFrame, "message.load.failed");
         }
     }
 
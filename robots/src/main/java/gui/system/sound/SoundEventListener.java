@@ -0,0 +1,23 @@
+package gui.system.sound;
+
+import game.engine.GameEventListener;
+
+/**
+ * Озвучивает события движка через SoundManager.
+ */
+public class SoundEventListener implements GameEventListener {
+    @Override
+    public void onMove() {
+        SoundManager.playMove();
+    }
+
+    @Override
+    public void onDeath() {
+        SoundManager.playDeath();
+    }
+
+    @Override
+    public void onWin() {
+        SoundManager.playWin();
+    }
+}
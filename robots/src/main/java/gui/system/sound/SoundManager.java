@@ -1,6 +1,8 @@
 // Файл: src/main/java/gui/system/sound/SoundManager.java
 package gui.system.sound;
 
+import log.WindowLogger;
+
 import javax.sound.sampled.*;
 import java.io.IOException;
 import java.net.URL;
@@ -43,6 +45,10 @@ public class SoundManager {
             Clip clip = AudioSystem.getClip();
             clip.open(ais);
             return clip;
+        } catch (IllegalArgumentException e) {
+            // Нет звукового устройства (например, на CI-сервере) - играем без звука
+            WindowLogger.warning("No audio line for {}", path);
+            return null;
         } catch (UnsupportedAudioFileException | IOException | LineUnavailableException e) {
             System.err.println("[SoundManager] failed to load: " + path);
             e.printStackTrace();
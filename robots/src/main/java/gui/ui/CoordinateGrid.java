@@ -1,11 +1,21 @@
 package gui.ui;
 
+import game.engine.GridDimensions;
+
 import java.awt.*;
+import java.awt.image.BufferedImage;
+
+public class CoordinateGrid implements GridDimensions {
+    private static final int FALLBACK_DPI = 96;
+    private static final Color BACKGROUND_COLOR = new Color(50, 50, 50);
 
-public class CoordinateGrid {
     private final int columns;
     private final int rows;
-    private final int desiredCellSize; // Размер клетки в пикселях при стандартном разрешении (~1 см)
+    private int desiredCellSize = -1; // Размер клетки в пикселях при стандартном разрешении (~1 см)
+
+    // Фон и линии сетки, отрисованные заранее; пересоздаются только при смене размера панели
+    private BufferedImage backgroundLayer;
+    private int layerCellSize = -1;
 
     /**
      * @param columns Количество столбцов сетки
@@ -14,15 +24,30 @@ public class CoordinateGrid {
     public CoordinateGrid(int columns, int rows) {
         this.columns = columns;
         this.rows = rows;
-        // Получаем dpi экрана и вычисляем размер 1 см в пикселях
-        int dpi = Toolkit.getDefaultToolkit().getScreenResolution();
-        this.desiredCellSize = (int) Math.round(dpi / 2.54);
+    }
+
+    /**
+     * Размер 1 см в пикселях. DPI экрана запрашивается лениво, при первой отрисовке,
+     * чтобы сетку можно было создать и без дисплея.
+     */
+    private int getDesiredCellSize() {
+        if (desiredCellSize < 0) {
+            int dpi;
+            try {
+                dpi = Toolkit.getDefaultToolkit().getScreenResolution();
+            } catch (HeadlessException e) {
+                dpi = FALLBACK_DPI;
+            }
+            desiredCellSize = (int) Math.round(dpi / 2.54);
+        }
+        return desiredCellSize;
     }
 
     /**
      * Вычисляет размер клетки в зависимости от размеров панели.
      */
     public int getCellSize(int panelWidth, int panelHeight) {
+        int desiredCellSize = getDesiredCellSize();
         int cellSize = desiredCellSize;
         if (columns * desiredCellSize > panelWidth || rows * desiredCellSize > panelHeight) {
             cellSize = Math.min(panelWidth / columns, panelHeight / rows);
@@ -42,14 +67,51 @@ public class CoordinateGrid {
         return new Point(startX, startY);
     }
 
+    @Override
     public int getColumns() {
         return columns;
     }
 
+    @Override
     public int getRows() {
         return rows;
     }
 
+    /**
+     * Рисует фон вместе с сеткой одним копированием готового изображения.
+     * Изображение строится при первом вызове и заново - только если изменился
+     * размер панели (а с ним и размер клетки), поэтому стоимость кадра не зависит
+     * от числа строк и столбцов.
+     */
+    public void drawBackground(Graphics2D g, int panelWidth, int panelHeight) {
+        if (panelWidth <= 0 || panelHeight <= 0) {
+            return;
+        }
+        int cellSize = getCellSize(panelWidth, panelHeight);
+        if (backgroundLayer == null || backgroundLayer.getWidth() != panelWidth
+                || backgroundLayer.getHeight() != panelHeight || layerCellSize != cellSize) {
+            backgroundLayer = createBackgroundLayer(g.getDeviceConfiguration(), panelWidth, panelHeight);
+            layerCellSize = cellSize;
+        }
+        g.drawImage(backgroundLayer, 0, 0, null);
+    }
+
+    private BufferedImage createBackgroundLayer(GraphicsConfiguration config, int panelWidth, int panelHeight) {
+        // Совместимый с устройством формат копируется на экран без преобразования пикселей
+        BufferedImage layer = config != null
+                ? config.createCompatibleImage(panelWidth, panelHeight, Transparency.OPAQUE)
+                : new BufferedImage(panelWidth, panelHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = layer.createGraphics();
+        try {
+            g.setColor(BACKGROUND_COLOR);
+            g.fillRect(0, 0, panelWidth, panelHeight);
+            drawGrid(g, panelWidth, panelHeight);
+        } finally {
+            g.dispose();
+        }
+        return layer;
+    }
+
     /**
      * Отрисовывает сетку так, чтобы весь её блок (колонки x строки) полностью помещался на панели.
      *
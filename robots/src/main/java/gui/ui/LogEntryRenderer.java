@@ -0,0 +1,59 @@
+package gui.ui;
+
+import log.LogEntry;
+import log.LogLevel;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.Serial;
+
+/**
+ * Отрисовка строки лога: текст сообщения, цвет зависит от уровня.
+ * Один и тот же компонент переиспользуется для всех видимых строк.
+ * Строка списка однострочная: у многострочного сообщения (например, со стеком
+ * исключения) показываются первая строка и заголовок исключения, а целиком
+ * сообщение видно во всплывающей подсказке.
+ */
+class LogEntryRenderer extends DefaultListCellRenderer {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final Color WARNING_COLOR = new Color(180, 110, 0);
+    private static final Color ERROR_COLOR = new Color(200, 0, 0);
+
+    @Override
+    public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                  boolean isSelected, boolean cellHasFocus) {
+        LogEntry entry = (LogEntry) value;
+        String message = entry == null || entry.getMessage() == null ? "" : entry.getMessage();
+        String[] lines = message.split("\\R", 3);
+        super.getListCellRendererComponent(list, summaryOf(lines), index, isSelected, cellHasFocus);
+        setToolTipText(lines.length > 1 ? "<html><pre>" + escapeHtml(message) + "</pre></html>" : null);
+        if (entry != null && !isSelected) {
+            setForeground(colorOf(entry.getLevel()));
+        }
+        return this;
+    }
+
+    // "Command failed" и строка "java.io.IOException: boom" из стека дают одну строку
+    private static String summaryOf(String[] lines) {
+        if (lines.length == 1 || lines[1].isBlank()) {
+            return lines[0];
+        }
+        return lines[0] + ": " + lines[1].strip();
+    }
+
+    private static String escapeHtml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static Color colorOf(LogLevel level) {
+        return switch (level) {
+            case Trace -> Color.GRAY;
+            case Debug -> Color.DARK_GRAY;
+            case Info -> Color.BLACK;
+            case Warning -> WARNING_COLOR;
+            case Error, Fatal -> ERROR_COLOR;
+        };
+    }
+}
@@ -0,0 +1,109 @@
+package gui.ui;
+
+import log.LogEntry;
+import log.LogWindowSource;
+
+import javax.swing.*;
+import java.io.Serial;
+import java.util.Arrays;
+
+/**
+ * Модель списка для окна лога, которая не копирует журнал целиком.
+ * Строка i - это запись с номером (номер первой строки + i). Запись запрашивается
+ * у источника только когда список её рисует: через range() подгружается страница
+ * из PAGE_SIZE соседних записей, поэтому прокрутка обходится несколькими
+ * обращениями к источнику, а размер журнала на отрисовку не влияет.
+ *
+ * Модель заменяет прежний вывод в JTextArea, но обновляется так же инкрементально:
+ * refresh() срезает начало по getFirstSequence() и дописывает хвост до первой
+ * записи, которую ещё пишет другой поток. Сами строки при этом не копируются.
+ */
+class LogListModel extends AbstractListModel<LogEntry> {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private static final int PAGE_SIZE = 256;
+
+    private final LogWindowSource m_logSource;
+
+    // Номер записи в первой строке и число строк, известных списку
+    private long m_lFirstSequence;
+    private int m_iSize;
+
+    // Последняя подгруженная страница
+    private long m_lPageStart = -1;
+    private final LogEntry[] m_page = new LogEntry[PAGE_SIZE];
+
+    LogListModel(LogWindowSource logSource) {
+        m_logSource = logSource;
+        m_lFirstSequence = logSource.getFirstSequence();
+    }
+
+    @Override
+    public int getSize() {
+        return m_iSize;
+    }
+
+    /**
+     * Запись строки index или null, если источник её уже вытеснил
+     * (строка исчезнет при следующем refresh()).
+     */
+    @Override
+    public LogEntry getElementAt(int index) {
+        long sequence = m_lFirstSequence + index;
+        long pageStart = sequence - Math.floorMod(sequence, PAGE_SIZE);
+        if (pageStart != m_lPageStart) {
+            loadPage(pageStart);
+        }
+        return m_page[(int) (sequence - pageStart)];
+    }
+
+    /**
+     * Строка записи с этим номером или -1, если список её не показывает.
+     */
+    int rowOf(long sequence) {
+        long row = sequence - m_lFirstSequence;
+        return row >= 0 && row < m_iSize ? (int) row : -1;
+    }
+
+    /**
+     * Сверяет модель с источником: убирает из начала вытесненные записи и добавляет
+     * в конец новые, сообщая списку только об этих строках. Вызывается в потоке EDT.
+     */
+    void refresh() {
+        long first = m_logSource.getFirstSequence();
+        long end = Math.max(m_lFirstSequence + m_iSize, first);
+        // Новые строки заканчиваются перед записью, которую ещё пишет другой поток
+        long newEnd = m_logSource.getWrittenEnd(end);
+        m_lPageStart = -1;
+
+        int removed = (int) Math.min(m_iSize, Math.max(0, first - m_lFirstSequence));
+        m_lFirstSequence = first;
+        m_iSize -= removed;
+        if (removed > 0) {
+            fireIntervalRemoved(this, 0, removed - 1);
+        }
+
+        int oldSize = m_iSize;
+        m_iSize = (int) (newEnd - first);
+        if (m_iSize > oldSize) {
+            fireIntervalAdded(this, oldSize, m_iSize - 1);
+        }
+    }
+
+    private void loadPage(long pageStart) {
+        Arrays.fill(m_page, null);
+        long sourceFirst = m_logSource.getFirstSequence();
+        long from = Math.max(pageStart, sourceFirst);
+        int count = (int) (pageStart + PAGE_SIZE - from);
+        if (count > 0) {
+            for (LogEntry entry : m_logSource.range((int) (from - sourceFirst), count)) {
+                long offset = entry.getSequence() - pageStart;
+                if (offset >= 0 && offset < PAGE_SIZE) {
+                    m_page[(int) offset] = entry;
+                }
+            }
+        }
+        m_lPageStart = pageStart;
+    }
+}
@@ -4,6 +4,7 @@ import gui.system.localization.LocaleChangeListener;
 import gui.system.localization.LocalizationManager;
 import log.LogChangeListener;
 import log.LogEntry;
+import log.LogLevel;
 import log.LogWindowSource;
 
 import javax.swing.*;
@@ -12,8 +13,14 @@ import javax.swing.event.InternalFrameEvent;
 import java.awt.*;
 
 public class LogWindow extends JInternalFrame implements LogChangeListener, LocaleChangeListener {
+    // Образец строки: по нему список один раз вычисляет размер ячейки и не обходит все записи
+    private static final LogEntry PROTOTYPE_ENTRY =
+            new LogEntry(LogLevel.Info, "Robot moved to cell (00, 00), formula rules recalculated");
+
     private LogWindowSource m_logSource;
-    private TextArea m_logContent;
+    private final LogListModel m_logModel;
+    private final JList<LogEntry> m_logContent;
+    private final JTextField m_searchField;
 
     private final int width = 400;
     private final int height = 600;
@@ -22,13 +29,20 @@ public class LogWindow extends JInternalFrame implements LogChangeListener, Loca
         super(LocalizationManager.getInstance().getString("log.window.title"), true, true, true, true);
         m_logSource = logSource;
         m_logSource.registerListener(this);
-        m_logContent = new TextArea("");
-        m_logContent.setSize(width, height);
-        m_logContent.setEditable(false);
+        m_logModel = new LogListModel(logSource);
+        m_logContent = new JList<>(m_logModel);
+        m_logContent.setCellRenderer(new LogEntryRenderer());
+        m_logContent.setPrototypeCellValue(PROTOTYPE_ENTRY);
+        m_searchField = new JTextField();
+        m_searchField.setToolTipText(LocalizationManager.getInstance().getString("log.search.tooltip"));
+        m_searchField.addActionListener(e -> findNext(m_searchField.getText()));
         LocalizationManager.getInstance().addListener(this);
 
+        JScrollPane scrollPane = new JScrollPane(m_logContent);
+        scrollPane.setPreferredSize(new Dimension(width, height));
         JPanel panel = new JPanel(new BorderLayout());
-        panel.add(m_logContent, BorderLayout.CENTER);
+        panel.add(m_searchField, BorderLayout.NORTH);
+        panel.add(scrollPane, BorderLayout.CENTER);
         getContentPane().add(panel);
         pack();
 
@@ -49,15 +63,43 @@ public class LogWindow extends JInternalFrame implements LogChangeListener, Loca
         }
     }
 
+    /**
+     * Сообщает списку о новых и вытесненных записях; сами записи список
+     * запросит у модели только для видимых строк.
+     */
     void updateLogContent() {
         if (m_logSource == null) return;
 
-        StringBuilder content = new StringBuilder();
-        for (LogEntry entry : m_logSource.all()) {
-            content.append(entry.getMessage()).append("\n");
+        int lastIndex = m_logModel.getSize() - 1;
+        boolean followTail = lastIndex < 0 || m_logContent.getLastVisibleIndex() >= lastIndex;
+        m_logModel.refresh();
+        if (followTail && m_logModel.getSize() > 0) {
+            m_logContent.ensureIndexIsVisible(m_logModel.getSize() - 1);
+        }
+    }
+
+    /**
+     * Выделяет следующую после выделенной строку, в которой есть все слова запроса;
+     * после последнего совпадения поиск начинается сначала.
+     */
+    void findNext(String query) {
+        if (m_logSource == null) return;
+
+        updateLogContent();
+        int current = m_logContent.getSelectedIndex();
+        int found = -1;
+        for (LogEntry entry : m_logSource.search(query)) {
+            int row = m_logModel.rowOf(entry.getSequence());
+            if (row < 0) continue;
+            if (found < 0 || row > current) {
+                found = row;
+                if (row > current) break;
+            }
+        }
+        if (found >= 0) {
+            m_logContent.setSelectedIndex(found);
+            m_logContent.ensureIndexIsVisible(found);
         }
-        m_logContent.setText(content.toString());
-        m_logContent.invalidate();
     }
 
     @Override
@@ -75,5 +117,6 @@ public class LogWindow extends JInternalFrame implements LogChangeListener, Loca
     @Override
     public void localeChanged() {
         this.setTitle(LocalizationManager.getInstance().getString("log.window.title"));
+        m_searchField.setToolTipText(LocalizationManager.getInstance().getString("log.search.tooltip"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+package gui.ui.drawing;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Кэш готовых изображений плиток формул (фон, рамка и подобранный по размеру текст).
+ * Плитка рисуется один раз для каждого сочетания слова, цвета и размера клетки
+ * и используется всеми плитками с тем же словом. При смене размера клетки кэш сбрасывается.
+ */
+public class FormulaTileCache {
+    private static final int MIN_FONT_SIZE = 4;
+    private static final int MAX_FONT_SIZE = 30;
+
+    private static FormulaTileCache instance;
+
+    private final Map<String, BufferedImage> tiles = new HashMap<>();
+    private int tileWidth = -1;
+    private int tileHeight = -1;
+
+    private FormulaTileCache() {}
+
+    public static FormulaTileCache getInstance() {
+        if (instance == null) {
+            instance = new FormulaTileCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Возвращает плитку размером (width + 1) x (height + 1): рамка рисуется по внешнему краю.
+     */
+    public BufferedImage getTile(Graphics2D g, String text, Color background, int width, int height) {
+        if (width != tileWidth || height != tileHeight) {
+            tiles.clear();
+            tileWidth = width;
+            tileHeight = height;
+        }
+        Font font = g.getFont();
+        String key = text + '\u0000' + background.getRGB() + '\u0000' + font.getName();
+        BufferedImage tile = tiles.get(key);
+        if (tile == null) {
+            tile = render(g.getDeviceConfiguration(), font, text, background, width, height);
+            tiles.put(key, tile);
+        }
+        return tile;
+    }
+
+    public void clear() {
+        tiles.clear();
+        tileWidth = -1;
+        tileHeight = -1;
+    }
+
+    private static BufferedImage render(GraphicsConfiguration config, Font baseFont, String text,
+                                        Color background, int width, int height) {
+        BufferedImage tile = config != null
+                ? config.createCompatibleImage(width + 1, height + 1, Transparency.TRANSLUCENT)
+                : new BufferedImage(width + 1, height + 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = tile.createGraphics();
+        try {
+            // Draw background rectangle with element type color
+            g.setColor(background);
+            g.fillRect(0, 0, width, height);
+
+            // Draw border
+            g.setColor(Color.BLACK);
+            g.drawRect(0, 0, width, height);
+
+            // Scale font to fit in box and center text
+            g.setColor(Color.WHITE);
+            int fontSize = getFittingFontSize(g, baseFont, text, width, height);
+            g.setFont(new Font(baseFont.getName(), Font.BOLD, fontSize));
+            FontMetrics fm = g.getFontMetrics();
+            int textWidth = fm.stringWidth(text);
+            int textHeight = fm.getHeight();
+            g.drawString(text, (width - textWidth) / 2, (height + textHeight) / 2 - fm.getDescent());
+        } finally {
+            g.dispose();
+        }
+        return tile;
+    }
+
+    private static int getFittingFontSize(Graphics g, Font baseFont, String text, int width, int height) {
+        int minSize = MIN_FONT_SIZE;
+        int maxSize = MAX_FONT_SIZE;
+        int fittedSize = minSize;
+
+        while (minSize <= maxSize) {
+            int mid = (minSize + maxSize) / 2;
+            Font testFont = new Font(baseFont.getName(), Font.BOLD, mid);
+            FontMetrics fm = g.getFontMetrics(testFont);
+
+            boolean fitsWidth  = fm.stringWidth(text) <= width;
+            boolean fitsHeight = fm.getHeight() <= height;
+
+            if (fitsWidth && fitsHeight) {
+                fittedSize = mid;     // этот размер влезает, запоминаем его
+                minSize = mid + 1;    // пробуем найти побольше
+            } else {
+                maxSize = mid - 1;    // слишком большой — уменьшаем
+            }
+        }
+
+        return fittedSize - 2;
+    }
+}
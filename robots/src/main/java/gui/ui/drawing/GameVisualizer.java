@@ -1,11 +1,14 @@
 package gui.ui.drawing;
 
+import game.engine.GameEventListener;
+import game.engine.GameLoop;
 import game.factory.GameObjectFactory;
 import game.mechanic.MovementHandler;
 import game.model.GameObject;
 import game.model.ObjectProperty;
+import game.model.WorldSnapshot;
 import gui.system.localization.LocalizationManager;
-import gui.system.sound.SoundManager;
+import gui.system.sound.SoundEventListener;
 import gui.ui.CoordinateGrid;
 import lombok.Getter;
 
@@ -16,11 +19,34 @@ import java.awt.geom.AffineTransform;
 import java.util.ArrayList;
 
 public class GameVisualizer extends JPanel {
+    private static final int DEFAULT_MOVE_ANIMATION_MILLIS = 80;
+    private static final int ANIMATION_FRAME_MILLIS = 15;
+
     @Getter
     private final MovementHandler movementHandler;
     private int panelWidth = 0;
     private int panelHeight = 0;
     private final CoordinateGrid grid;
+    // Мир меняется только командами игрового цикла; EDT рисует опубликованные снимки
+    private final GameLoop gameLoop;
+
+    // Last snapshot published by the loop; readable from any thread
+    private volatile WorldSnapshot publishedSnapshot = WorldSnapshot.EMPTY;
+
+    // EDT: the snapshot being drawn, when it arrived and the region still being animated
+    private WorldSnapshot snapshot = WorldSnapshot.EMPTY;
+    private long snapshotNanos = 0;
+    private int moveAnimationMillis = DEFAULT_MOVE_ANIMATION_MILLIS;
+    private final Timer animationTimer;
+    private Rectangle animatedRegion;
+
+    // Loop thread: the whole world was replaced, the next publication repaints everything
+    private boolean fullRepaintPending = false;
+    // Loop thread: bounds of the cells changed since the last publication (in cells, inclusive)
+    private int dirtyMinX = Integer.MAX_VALUE;
+    private int dirtyMinY = Integer.MAX_VALUE;
+    private int dirtyMaxX = Integer.MIN_VALUE;
+    private int dirtyMaxY = Integer.MIN_VALUE;
 
     public GameVisualizer() {
         // Initialize the grid
@@ -29,8 +55,33 @@ public class GameVisualizer extends JPanel {
         // Initialize the movement handler
         this.movementHandler = new MovementHandler(grid);
 
+        // Subscribe sound and end-of-game dialogs to engine events
+        movementHandler.addGameEventListener(new SoundEventListener());
+        movementHandler.addGameEventListener(new GameEventListener() {
+            @Override
+            public void onDeath() {
+                showGameOverDialog();
+            }
+
+            @Override
+            public void onWin() {
+                showVictoryDialog();
+            }
+
+            @Override
+            public void onCellChanged(int x, int y) {
+                markCellDirty(x, y);
+            }
+        });
+
+        this.gameLoop = new GameLoop(movementHandler, GameLoop.DEFAULT_TICKS_PER_SECOND, this::publishSnapshot);
+        this.animationTimer = new Timer(ANIMATION_FRAME_MILLIS, e -> repaintAnimation());
+
         // Initialize game objects and formulas
-        GameObjectFactory.initializeGame(movementHandler);
+        gameLoop.submit(() -> {
+            GameObjectFactory.initializeGame(movementHandler);
+            fullRepaintPending = true;
+        });
 
         // Set up keyboard input
         setFocusable(true);
@@ -80,32 +131,119 @@ public class GameVisualizer extends JPanel {
     }
 
     void movePlayerInCells(int dx, int dy) {
-        boolean moved = movementHandler.movePlayers(dx, dy);
+        // The move runs on the game loop; win/loss dialogs and sounds are triggered by engine events
+        gameLoop.submitMove(dx, dy);
+    }
 
-        // Check game state after movement
-        if (moved) {
-            checkGameState();
-        }
+    /**
+     * Длительность плавного перемещения объектов в миллисекундах; 0 отключает анимацию.
+     */
+    public void setMoveAnimationMillis(int millis) {
+        this.moveAnimationMillis = Math.max(0, millis);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        gameLoop.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        gameLoop.stop();
+        animationTimer.stop();
+        super.removeNotify();
+    }
+
+    private void markCellDirty(int x, int y) {
+        dirtyMinX = Math.min(dirtyMinX, x);
+        dirtyMinY = Math.min(dirtyMinY, y);
+        dirtyMaxX = Math.max(dirtyMaxX, x);
+        dirtyMaxY = Math.max(dirtyMaxY, y);
+    }
 
-        repaint();
+    private void resetDirtyCells() {
+        dirtyMinX = Integer.MAX_VALUE;
+        dirtyMinY = Integer.MAX_VALUE;
+        dirtyMaxX = Integer.MIN_VALUE;
+        dirtyMaxY = Integer.MIN_VALUE;
     }
 
     /**
-     * Check win/loss conditions and display appropriate dialog
+     * Called by the game loop after a tick that changed the world: takes the snapshot
+     * and the changed cells and hands them over to the EDT.
      */
-    private void checkGameState() {
-        // Check if player won
-        if (movementHandler.isGameWon()) {
-            showVictoryDialog();
-            SoundManager.playWin();
+    private void publishSnapshot() {
+        WorldSnapshot next = movementHandler.getSnapshot();
+        publishedSnapshot = next;
+        boolean full = fullRepaintPending;
+        Rectangle cells = dirtyMinX > dirtyMaxX ? null
+                : new Rectangle(dirtyMinX, dirtyMinY, dirtyMaxX - dirtyMinX + 1, dirtyMaxY - dirtyMinY + 1);
+        fullRepaintPending = false;
+        resetDirtyCells();
+
+        if (SwingUtilities.isEventDispatchThread()) {
+            showSnapshot(next, cells, full);
+        } else {
+            SwingUtilities.invokeLater(() -> showSnapshot(next, cells, full));
+        }
+    }
+
+    private void showSnapshot(WorldSnapshot next, Rectangle cells, boolean full) {
+        if (next != snapshot) {
+            snapshot = next;
+            snapshotNanos = System.nanoTime();
+        }
+        if (full) {
+            animationTimer.stop();
+            animatedRegion = null;
+            repaint();
+            return;
+        }
+        Rectangle region = cells == null ? null : toPixels(cells);
+        if (region == null) {
             return;
         }
+        repaint(region);
+        if (moveAnimationMillis > 0) {
+            // A move arriving mid-animation extends the animated region
+            animatedRegion = animatedRegion == null ? region : animatedRegion.union(region);
+            animationTimer.restart();
+        }
+    }
+
+    private void repaintAnimation() {
+        if (animatedRegion != null) {
+            repaint(animatedRegion);
+        }
+        if (animationProgress() >= 1f) {
+            animationTimer.stop();
+            animatedRegion = null;
+        }
+    }
 
-        // Check if game is over (no controllable entities)
-        if (movementHandler.isGameOver()) {
-            showGameOverDialog();
-            SoundManager.playDeath();
+    private float animationProgress() {
+        if (moveAnimationMillis <= 0) {
+            return 1f;
+        }
+        float progress = (System.nanoTime() - snapshotNanos) / (moveAnimationMillis * 1_000_000f);
+        return Math.min(1f, progress);
+    }
+
+    /**
+     * Pixel rectangle of a range of cells, or null while the panel has no size yet.
+     */
+    private Rectangle toPixels(Rectangle cells) {
+        int width = getWidth();
+        int height = getHeight();
+        if (width <= 0 || height <= 0) {
+            return null;
         }
+        int cellSize = grid.getCellSize(width, height);
+        Point start = grid.getStartCoordinates(width, height);
+        // One extra pixel covers the grid line on the far edge
+        return new Rectangle(start.x + cells.x * cellSize, start.y + cells.y * cellSize,
+                cells.width * cellSize + 1, cells.height * cellSize + 1);
     }
 
     /**
@@ -166,17 +304,17 @@ public class GameVisualizer extends JPanel {
      * Restart the game
      */
     private void restartGame() {
-        // Reset game state flags first
-        movementHandler.resetGameState();
+        gameLoop.submit(() -> {
+            // Reset game state flags first
+            movementHandler.resetGameState();
 
-        // Initialize game objects and formulas
-        GameObjectFactory.initializeGame(movementHandler);
+            // Initialize game objects and formulas; the panel is repainted when the snapshot arrives
+            GameObjectFactory.initializeGame(movementHandler);
+            fullRepaintPending = true;
+        });
 
         // Request focus for keyboard input
         requestFocusInWindow();
-
-        // Repaint the panel
-        repaint();
     }
 
     @Override
@@ -189,48 +327,82 @@ public class GameVisualizer extends JPanel {
         Graphics2D g2d = (Graphics2D) g;
         AffineTransform originalTransform = g2d.getTransform();
 
-        // Рисуем фон
-        g2d.setColor(new Color(50, 50, 50));
-        g2d.fillRect(0, 0, panelWidth, panelHeight);
+        // Swing передаёт в clip только перерисовываемую область
+        Rectangle clip = g2d.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, panelWidth, panelHeight);
+        }
 
-        // Рисуем сетку
-        g2d.setColor(new Color(100, 100, 100));
-        grid.drawGrid(g2d, panelWidth, panelHeight);
+        // Рисуем фон и сетку (готовый слой, копируется только область clip)
+        grid.drawBackground(g2d, panelWidth, panelHeight);
 
-        // Рисуем все игровые объекты
+        // Рисуем объекты из снимка, попавшие в clip (с запасом в клетку на выступающие подписи).
+        // Во время анимации объект рисуется между прежней и новой клеткой.
         int cellSize = grid.getCellSize(panelWidth, panelHeight);
-        Point start = grid.getStartCoordinates(panelWidth, panelHeight);
-
-        for (GameObject obj : movementHandler.getGameObjects()) {
-            obj.draw(g2d, cellSize, start);
+        if (cellSize > 0) {
+            Point start = grid.getStartCoordinates(panelWidth, panelHeight);
+            int minX = Math.floorDiv(clip.x - start.x, cellSize) - 1;
+            int minY = Math.floorDiv(clip.y - start.y, cellSize) - 1;
+            int maxX = Math.floorDiv(clip.x + clip.width - start.x, cellSize) + 1;
+            int maxY = Math.floorDiv(clip.y + clip.height - start.y, cellSize) + 1;
+            float progress = animationProgress();
+
+            // Кандидаты берутся из индекса клеток снимка; ещё одна клетка запаса - для объектов,
+            // которые за время анимации уходят из clip
+            WorldSnapshot world = snapshot;
+            int[] candidates = world.indicesIn(minX - 1, minY - 1, maxX + 1, maxY + 1);
+            for (int i : candidates) {
+                float x = world.previousX(i) + (world.x(i) - world.previousX(i)) * progress;
+                float y = world.previousY(i) + (world.y(i) - world.previousY(i)) * progress;
+                if (x < minX || x > maxX || y < minY || y > maxY) {
+                    continue;
+                }
+                world.handle(i).drawAt(g2d, cellSize,
+                        start.x + Math.round(x * cellSize), start.y + Math.round(y * cellSize));
+            }
         }
         g2d.setTransform(originalTransform);
     }
 
+    /**
+     * Последний опубликованный снимок мира: его можно читать из любого потока
+     * (сохранение, статистика), не останавливая игровой цикл.
+     */
+    public WorldSnapshot getSnapshot() {
+        return publishedSnapshot;
+    }
+
     public ArrayList<GameObject> getMovableObjects() {
+        WorldSnapshot world = publishedSnapshot;
         ArrayList<GameObject> arr = new ArrayList<>();
-        for (GameObject obj : movementHandler.getGameObjects()) {
-            if (obj.hasProperty(ObjectProperty.PUSHABLE)) {
-                arr.add(obj);
+        for (int i = 0; i < world.size(); i++) {
+            if (world.hasProperty(i, ObjectProperty.PUSHABLE)) {
+                arr.add(world.handle(i));
             }
         }
-        return new ArrayList<>(arr);
+        return arr;
     }
 
     public ArrayList<GameObject> getGameObjects() {
-        return new ArrayList<>(movementHandler.getGameObjects());
+        return new ArrayList<>(publishedSnapshot.objects());
     }
 
     public void rewriteGameObjects(ArrayList<GameObject> newObjects) {
-        // Очищаем список объектов в движке
-        movementHandler.clearGameObjects();
+        gameLoop.submit(() -> {
+            // Очищаем список объектов в движке
+            movementHandler.clearGameObjects();
 
-        // Добавляем новые объекты
-        for (GameObject obj : newObjects) {
-            movementHandler.addGameObject(obj);
-        }
+            // Добавляем новые объекты
+            for (GameObject obj : newObjects) {
+                movementHandler.addGameObject(obj);
+            }
+
+            // Пересчитываем формулы и состояние игры
+            movementHandler.getFormulaHandler().processFormulas();
+            movementHandler.recalculateGameState();
 
-        // Перерисовываем игровое поле
-        repaint();
+            // Перерисовываем игровое поле целиком
+            fullRepaintPending = true;
+        });
     }
 }
\ No newline at end of file
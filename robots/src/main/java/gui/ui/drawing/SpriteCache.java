@@ -0,0 +1,72 @@
+package gui.ui.drawing;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Кэш текстур, заранее масштабированных под текущий размер объекта на экране.
+ * Каждая текстура масштабируется один раз в совместимый с устройством формат,
+ * после чего отрисовка объекта - простое копирование без масштабирования.
+ * При смене размера клетки (изменение окна) кэш сбрасывается.
+ */
+public class SpriteCache {
+    private static SpriteCache instance;
+
+    // Текстуры из ResourceLoader общие для всех объектов одного вида, поэтому ключ - сама картинка
+    private final Map<Image, Image> scaled = new IdentityHashMap<>();
+    private int spriteWidth = -1;
+    private int spriteHeight = -1;
+
+    private SpriteCache() {}
+
+    public static SpriteCache getInstance() {
+        if (instance == null) {
+            instance = new SpriteCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Возвращает текстуру, приведённую к размеру width x height.
+     */
+    public Image getScaled(Graphics2D g, Image texture, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return texture;
+        }
+        if (width != spriteWidth || height != spriteHeight) {
+            scaled.clear();
+            spriteWidth = width;
+            spriteHeight = height;
+        }
+        Image sprite = scaled.get(texture);
+        if (sprite == null) {
+            sprite = scale(g.getDeviceConfiguration(), texture, width, height);
+            scaled.put(texture, sprite);
+        }
+        return sprite;
+    }
+
+    public void clear() {
+        scaled.clear();
+        spriteWidth = -1;
+        spriteHeight = -1;
+    }
+
+    private static Image scale(GraphicsConfiguration config, Image texture, int width, int height) {
+        BufferedImage sprite = config != null
+                ? config.createCompatibleImage(width, height, Transparency.TRANSLUCENT)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = sprite.createGraphics();
+        try {
+            // Масштабирование выполняется один раз, поэтому можно позволить качественную интерполяцию
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(texture, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return sprite;
+    }
+}
@@ -1,24 +1,136 @@
 package log;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Запись лога. Сообщение может храниться как шаблон с плейсхолдерами "{}" и аргументами:
+ * текст собирается только при первом вызове getMessage(), то есть когда его
+ * действительно кто-то читает. Аргументы лучше передавать неизменяемыми.
+ */
 public class LogEntry
 {
+    static final Object[] NO_ARGUMENTS = new Object[0];
+
     private LogLevel m_logLevel;
-    private String m_strMessage;
+    private volatile String m_strMessage;
+    private final String m_strTemplate;
+    private final Object[] m_arguments;
+    // Порядковый номер записи в источнике (-1, если запись создана вне LogWindowSource)
+    private final long m_lSequence;
+    private final long m_lTimestamp;
+    private final String m_strThreadName;
     
     public LogEntry(LogLevel logLevel, String strMessage)
     {
-        m_strMessage = strMessage;
+        this(logLevel, strMessage, -1);
+    }
+
+    LogEntry(LogLevel logLevel, String strMessage, long lSequence)
+    {
+        this(logLevel, strMessage, NO_ARGUMENTS, lSequence, System.currentTimeMillis(),
+                Thread.currentThread().getName());
+    }
+
+    LogEntry(LogLevel logLevel, String strTemplate, Object[] arguments, long lSequence,
+             long lTimestamp, String strThreadName)
+    {
         m_logLevel = logLevel;
+        m_strTemplate = strTemplate;
+        m_arguments = arguments;
+        m_strMessage = arguments.length == 0 ? strTemplate : null;
+        m_lSequence = lSequence;
+        m_lTimestamp = lTimestamp;
+        m_strThreadName = strThreadName;
     }
     
     public String getMessage()
     {
-        return m_strMessage;
+        String message = m_strMessage;
+        if (message == null)
+        {
+            // Гонка безопасна: оба потока соберут одинаковую строку
+            message = format(m_strTemplate, m_arguments);
+            m_strMessage = message;
+        }
+        return message;
     }
     
     public LogLevel getLevel()
     {
         return m_logLevel;
     }
-}
 
+    public long getSequence()
+    {
+        return m_lSequence;
+    }
+
+    /**
+     * Время создания записи, мс с начала эпохи.
+     */
+    public long getTimestamp()
+    {
+        return m_lTimestamp;
+    }
+
+    /**
+     * Имя потока, создавшего запись (null для записей, прочитанных из журнала).
+     */
+    public String getThreadName()
+    {
+        return m_strThreadName;
+    }
+
+    /**
+     * Шаблон сообщения; для записей без аргументов совпадает с самим сообщением.
+     */
+    public String getTemplate()
+    {
+        return m_strTemplate;
+    }
+
+    /**
+     * Структурированные поля записи - аргументы шаблона в порядке плейсхолдеров.
+     */
+    public Object[] getArguments()
+    {
+        return m_arguments.length == 0 ? m_arguments : m_arguments.clone();
+    }
+
+    /**
+     * Подставляет аргументы вместо "{}" по порядку; лишние аргументы отбрасываются,
+     * плейсхолдеры без аргумента остаются как есть. Если последний аргумент - исключение,
+     * которому не нашлось плейсхолдера, к сообщению дописывается его стек вызовов:
+     * error("Command failed", e).
+     */
+    static String format(String strTemplate, Object[] arguments)
+    {
+        if (strTemplate == null)
+        {
+            return null;
+        }
+        StringBuilder result = new StringBuilder(strTemplate.length() + 16 * arguments.length);
+        int from = 0;
+        int used = 0;
+        for (Object argument : arguments)
+        {
+            int placeholder = strTemplate.indexOf("{}", from);
+            if (placeholder < 0)
+            {
+                break;
+            }
+            result.append(strTemplate, from, placeholder).append(argument);
+            from = placeholder + 2;
+            used++;
+        }
+        result.append(strTemplate, from, strTemplate.length());
+        if (used < arguments.length && arguments[arguments.length - 1] instanceof Throwable)
+        {
+            StringWriter trace = new StringWriter();
+            ((Throwable) arguments[arguments.length - 1]).printStackTrace(new PrintWriter(trace));
+            result.append(System.lineSeparator()).append(trace.toString().stripTrailing());
+        }
+        return result.toString();
+    }
+}
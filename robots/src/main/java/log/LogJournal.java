@@ -0,0 +1,539 @@
+package log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Журнал лога на диске: файлы-сегменты фиксированного размера, отображённые в память.
+ * Запись дописывается в конец текущего сегмента компактной двоичной записью
+ * (номер, время, уровень, собранное сообщение в UTF-8), поэтому лог переживает и закрытие
+ * программы, и её падение, а куча не растёт вместе с историей.
+ *
+ * Записи от источника лога принимает offer(): он лишь кладёт запись в очередь,
+ * а на диск их по порядку номеров пишет единственный фоновый поток журнала,
+ * так что писатели лога не ждут ни друг друга, ни диска. Пока запись в очереди,
+ * read() отдаёт её из очереди.
+ *
+ * Следующий сегмент заранее создаёт тот же фоновый поток, он же удаляет самые старые
+ * сегменты сверх maxSegments. Записи одного сегмента идут по возрастанию номеров;
+ * для быстрого поиска по номеру в сегменте хранится смещение каждой INDEX_STEP-й записи.
+ */
+public final class LogJournal implements Closeable
+{
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 20;
+    public static final int DEFAULT_MAX_SEGMENTS = 16;
+
+    private static final int MAGIC = 0x524C4A31; // "RLJ1"
+    // MAGIC и номер первой записи сегмента
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    // Длина, номер, время, уровень
+    private static final int RECORD_OVERHEAD = Integer.BYTES + Long.BYTES + Long.BYTES + 1;
+    private static final int INDEX_STEP = 64;
+    // Сколько close() ждёт, пока фоновый поток допишет очередь и удалит старые сегменты
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final LogLevel[] LEVELS = LogLevel.values();
+
+    private final Path m_directory;
+    private final int m_iSegmentSize;
+    private final int m_iMaxSegments;
+
+    // Сегменты от старых к новым; последний - текущий
+    private final ArrayDeque<Segment> m_segments = new ArrayDeque<>();
+    private volatile long m_lFirstSequence;
+    private long m_lNextSequence;
+    private long m_lNextSegmentId;
+
+    // Подготовленный фоновым потоком пустой сегмент
+    private Segment m_prepared;
+    private boolean m_bPreparing;
+    private final ExecutorService m_roller;
+
+    // Записи, переданные через offer() и ещё не записанные, по номерам
+    private final ConcurrentHashMap<Long, LogEntry> m_pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean m_drainScheduled = new AtomicBoolean();
+
+    public LogJournal(Path directory) throws IOException
+    {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_SEGMENTS);
+    }
+
+    public LogJournal(Path directory, int iSegmentSize, int iMaxSegments) throws IOException
+    {
+        if (iSegmentSize < HEADER_SIZE + RECORD_OVERHEAD + 64 || iMaxSegments < 2)
+        {
+            throw new IllegalArgumentException("Journal segments are too small or too few");
+        }
+        m_directory = directory;
+        m_iSegmentSize = iSegmentSize;
+        m_iMaxSegments = iMaxSegments;
+        Files.createDirectories(directory);
+        openExistingSegments();
+        if (m_segments.isEmpty())
+        {
+            Segment segment = createSegment();
+            segment.activate(m_lNextSequence);
+            m_segments.addLast(segment);
+        }
+        m_lFirstSequence = m_segments.peekFirst().m_lFirst;
+        m_roller = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Номер самой старой записи, которая ещё хранится в журнале.
+     */
+    public long getFirstSequence()
+    {
+        return m_lFirstSequence;
+    }
+
+    /**
+     * Номер, который получит следующая запись; продолжает нумерацию прошлых сессий.
+     */
+    public synchronized long getNextSequence()
+    {
+        return m_lNextSequence;
+    }
+
+    /**
+     * Ставит запись в очередь на запись фоновым потоком и сразу возвращается.
+     * Записи могут приходить не по порядку, но номера не должны пропускаться:
+     * запись пишется, когда записаны все предыдущие.
+     */
+    void offer(LogEntry entry)
+    {
+        m_pending.put(entry.getSequence(), entry);
+        if (m_drainScheduled.compareAndSet(false, true))
+        {
+            try
+            {
+                m_roller.execute(this::drain);
+            }
+            catch (RejectedExecutionException e)
+            {
+                // Журнал уже закрывается - пишем сами
+                drain();
+            }
+        }
+    }
+
+    private void drain()
+    {
+        // Сбрасываем до записи: запись, пришедшая во время drain(), запланирует новый проход
+        m_drainScheduled.set(false);
+        synchronized (this)
+        {
+            LogEntry entry;
+            while ((entry = m_pending.get(m_lNextSequence)) != null)
+            {
+                try
+                {
+                    append(entry);
+                }
+                catch (RuntimeException e)
+                {
+                    // Сбой диска не должен останавливать запись следующих сообщений
+                    e.printStackTrace();
+                    m_lNextSequence = entry.getSequence() + 1;
+                }
+                m_pending.remove(entry.getSequence());
+            }
+        }
+    }
+
+    /**
+     * Дописывает запись. Номера записей должны идти подряд по возрастанию.
+     */
+    synchronized void append(LogEntry entry)
+    {
+        byte[] message = entry.getMessage() == null ? new byte[0]
+                : entry.getMessage().getBytes(StandardCharsets.UTF_8);
+        int maxMessage = m_iSegmentSize - HEADER_SIZE - RECORD_OVERHEAD;
+        if (message.length > maxMessage)
+        {
+            message = Arrays.copyOf(message, maxMessage);
+        }
+
+        Segment current = m_segments.peekLast();
+        if (!current.fits(message.length))
+        {
+            current = roll();
+        }
+        current.write(entry.getSequence(), entry.getTimestamp(), entry.getLevel(), message);
+        m_lNextSequence = entry.getSequence() + 1;
+
+        // Следующий сегмент готовится заранее, пока текущий не заполнен;
+        // после закрытия его создаст roll() при переключении
+        if (m_prepared == null && !m_bPreparing && current.m_iPosition > m_iSegmentSize / 2
+                && !m_roller.isShutdown())
+        {
+            m_bPreparing = true;
+            try
+            {
+                m_roller.execute(this::prepareNextSegment);
+            }
+            catch (RejectedExecutionException e)
+            {
+                m_bPreparing = false;
+            }
+        }
+    }
+
+    /**
+     * Не больше count записей начиная с номера fromSequence, по порядку.
+     */
+    public synchronized List<LogEntry> read(long fromSequence, int count)
+    {
+        List<LogEntry> result = new ArrayList<>(Math.max(0, Math.min(count, 1024)));
+        long to = Math.min(fromSequence + count, m_lNextSequence);
+        for (Segment segment : m_segments)
+        {
+            if (segment.m_lNext > fromSequence && segment.m_lFirst < to)
+            {
+                segment.read(fromSequence, to, result);
+            }
+        }
+        // Ещё не записанные на диск записи идут сразу за записанными, до первого пропуска
+        long expected = Math.max(fromSequence, m_lNextSequence);
+        long pendingTo = fromSequence + count;
+        while (expected < pendingTo)
+        {
+            LogEntry entry = m_pending.get(expected);
+            if (entry == null)
+            {
+                break;
+            }
+            result.add(entry);
+            expected++;
+        }
+        return result;
+    }
+
+    /**
+     * Дожидается, пока фоновый поток допишет очередь и удалит вытесненные сегменты,
+     * и сбрасывает сегменты на диск. Записи, пришедшие после закрытия, пишутся сразу.
+     */
+    @Override
+    public void close()
+    {
+        // Ждём без блокировки журнала: она нужна самому фоновому потоку
+        m_roller.shutdown();
+        try
+        {
+            if (!m_roller.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+            {
+                System.err.println("Log journal did not finish background work in time");
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this)
+        {
+            drain();
+            for (Segment segment : m_segments)
+            {
+                segment.m_buffer.force();
+            }
+        }
+    }
+
+    private Segment roll()
+    {
+        Segment next = m_prepared;
+        m_prepared = null;
+        if (next == null)
+        {
+            try
+            {
+                next = createSegment();
+            }
+            catch (IOException e)
+            {
+                throw new IllegalStateException("Cannot create log journal segment", e);
+            }
+        }
+        next.activate(m_lNextSequence);
+        m_segments.addLast(next);
+
+        List<Path> expired = new ArrayList<>();
+        while (m_segments.size() > m_iMaxSegments)
+        {
+            Segment segment = m_segments.pollFirst();
+            segment.retire();
+            expired.add(segment.m_path);
+        }
+        m_lFirstSequence = m_segments.peekFirst().m_lFirst;
+        if (!expired.isEmpty())
+        {
+            try
+            {
+                m_roller.execute(() -> deleteSegments(expired));
+            }
+            catch (RejectedExecutionException e)
+            {
+                // Журнал уже закрывается - удаляем сами
+                deleteSegments(expired);
+            }
+        }
+        return next;
+    }
+
+    private void prepareNextSegment()
+    {
+        Segment segment = null;
+        try
+        {
+            segment = createSegment();
+        }
+        catch (IOException e)
+        {
+            // Сегмент будет создан при переключении, в потоке писателя
+            e.printStackTrace();
+        }
+        synchronized (this)
+        {
+            m_prepared = segment;
+            m_bPreparing = false;
+        }
+    }
+
+    private static void deleteSegments(List<Path> paths)
+    {
+        for (Path path : paths)
+        {
+            try
+            {
+                // Если файл ещё отображён и не удаляется, его удалит следующий запуск
+                Files.deleteIfExists(path);
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private Segment createSegment() throws IOException
+    {
+        long id;
+        synchronized (this)
+        {
+            id = m_lNextSegmentId++;
+        }
+        Path path = m_directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        return new Segment(path, map(path));
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE))
+        {
+            // Отображение остаётся действительным и после закрытия канала
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, m_iSegmentSize);
+        }
+    }
+
+    private void openExistingSegments() throws IOException
+    {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(m_directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX))
+        {
+            stream.forEach(paths::add);
+        }
+        paths.sort(null);
+        for (Path path : paths)
+        {
+            String name = path.getFileName().toString();
+            long id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+            m_lNextSegmentId = Math.max(m_lNextSegmentId, id + 1);
+            if (Files.size(path) != m_iSegmentSize)
+            {
+                // Сегмент другого размера - от другой настройки журнала
+                continue;
+            }
+            Segment segment = new Segment(path, map(path));
+            if (segment.recover())
+            {
+                m_segments.addLast(segment);
+                m_lNextSequence = segment.m_lNext;
+            }
+            else
+            {
+                // Пустой сегмент, подготовленный прошлой сессией
+                Files.deleteIfExists(path);
+            }
+        }
+        while (m_segments.size() > m_iMaxSegments)
+        {
+            Files.deleteIfExists(m_segments.pollFirst().m_path);
+        }
+    }
+
+    private final class Segment
+    {
+        private final Path m_path;
+        // null после retire()
+        private MappedByteBuffer m_buffer;
+        private long m_lFirst = -1;
+        private long m_lNext;
+        private int m_iPosition = HEADER_SIZE;
+
+        // Номер и смещение каждой INDEX_STEP-й записи
+        private long[] m_indexSequences = new long[16];
+        private int[] m_indexOffsets = new int[16];
+        private int m_iIndexSize = 0;
+
+        Segment(Path path, MappedByteBuffer buffer)
+        {
+            m_path = path;
+            m_buffer = buffer;
+        }
+
+        void activate(long lFirstSequence)
+        {
+            m_lFirst = lFirstSequence;
+            m_lNext = lFirstSequence;
+            m_buffer.putLong(Integer.BYTES, lFirstSequence);
+            m_buffer.putInt(0, MAGIC);
+        }
+
+        /**
+         * Забывает отображение и индекс вытесненного сегмента, чтобы сборщик мусора
+         * освободил отображённую память и файл, не дожидаясь самого объекта сегмента.
+         */
+        void retire()
+        {
+            m_buffer = null;
+            m_indexSequences = null;
+            m_indexOffsets = null;
+            m_iIndexSize = 0;
+        }
+
+        boolean fits(int iMessageLength)
+        {
+            return m_iPosition + RECORD_OVERHEAD + iMessageLength <= m_iSegmentSize;
+        }
+
+        void write(long lSequence, long lTimestamp, LogLevel level, byte[] message)
+        {
+            int position = m_iPosition;
+            if ((lSequence - m_lFirst) % INDEX_STEP == 0)
+            {
+                addIndexPoint(lSequence, position);
+            }
+            m_buffer.putLong(position + Integer.BYTES, lSequence);
+            m_buffer.putLong(position + Integer.BYTES + Long.BYTES, lTimestamp);
+            m_buffer.put(position + RECORD_OVERHEAD - 1, (byte) level.ordinal());
+            m_buffer.put(position + RECORD_OVERHEAD, message);
+            // Длина пишется последней: оборванная запись выглядит как конец сегмента
+            m_buffer.putInt(position, message.length + 1);
+            m_iPosition = position + RECORD_OVERHEAD + message.length;
+            m_lNext = lSequence + 1;
+        }
+
+        void read(long from, long to, List<LogEntry> result)
+        {
+            int start = Arrays.binarySearch(m_indexSequences, 0, m_iIndexSize, from);
+            if (start < 0)
+            {
+                start = -start - 2;
+            }
+            int position = start < 0 ? HEADER_SIZE : m_indexOffsets[start];
+            while (position < m_iPosition)
+            {
+                int length = m_buffer.getInt(position);
+                long sequence = m_buffer.getLong(position + Integer.BYTES);
+                if (sequence >= to)
+                {
+                    break;
+                }
+                if (sequence >= from)
+                {
+                    result.add(decode(position, length, sequence));
+                }
+                position += RECORD_OVERHEAD - 1 + length;
+            }
+        }
+
+        /**
+         * Восстанавливает позицию записи и индекс сегмента прошлой сессии;
+         * false, если сегмент так и не начал заполняться.
+         */
+        boolean recover()
+        {
+            if (m_buffer.getInt(0) != MAGIC)
+            {
+                return false;
+            }
+            m_lFirst = m_buffer.getLong(Integer.BYTES);
+            m_lNext = m_lFirst;
+            int position = HEADER_SIZE;
+            while (position + RECORD_OVERHEAD <= m_iSegmentSize)
+            {
+                int length = m_buffer.getInt(position);
+                if (length <= 0 || position + RECORD_OVERHEAD - 1 + length > m_iSegmentSize)
+                {
+                    break;
+                }
+                long sequence = m_buffer.getLong(position + Integer.BYTES);
+                if ((sequence - m_lFirst) % INDEX_STEP == 0)
+                {
+                    addIndexPoint(sequence, position);
+                }
+                m_lNext = sequence + 1;
+                position += RECORD_OVERHEAD - 1 + length;
+            }
+            m_iPosition = position;
+            return true;
+        }
+
+        private LogEntry decode(int position, int length, long sequence)
+        {
+            int ordinal = m_buffer.get(position + RECORD_OVERHEAD - 1);
+            LogLevel level = ordinal >= 0 && ordinal < LEVELS.length ? LEVELS[ordinal] : LogLevel.Info;
+            byte[] message = new byte[length - 1];
+            m_buffer.get(position + RECORD_OVERHEAD, message);
+            long timestamp = m_buffer.getLong(position + Integer.BYTES + Long.BYTES);
+            return new LogEntry(level, new String(message, StandardCharsets.UTF_8), LogEntry.NO_ARGUMENTS,
+                    sequence, timestamp, null);
+        }
+
+        private void addIndexPoint(long lSequence, int iOffset)
+        {
+            if (m_iIndexSize == m_indexSequences.length)
+            {
+                m_indexSequences = Arrays.copyOf(m_indexSequences, m_iIndexSize * 2);
+                m_indexOffsets = Arrays.copyOf(m_indexOffsets, m_iIndexSize * 2);
+            }
+            m_indexSequences[m_iIndexSize] = lSequence;
+            m_indexOffsets[m_iIndexSize] = iOffset;
+            m_iIndexSize++;
+        }
+    }
+}
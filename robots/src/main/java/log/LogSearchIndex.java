@@ -0,0 +1,192 @@
+package log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Обратный индекс по словам сообщений, хранимых в памяти (история журнала не индексируется): слово -> возрастающие номера записей.
+ * Писателей индекс не замедляет - новые записи индексируются при очередном поиске,
+ * а номера вытесненных записей отбрасываются по мере того, как источник их забывает.
+ */
+final class LogSearchIndex
+{
+    private final LogWindowSource m_source;
+    private final Map<String, Postings> m_postings = new HashMap<>();
+    // Записи с меньшими номерами уже проиндексированы
+    private long m_lIndexedBefore = 0;
+    private long m_lIndexedSinceSweep = 0;
+
+    LogSearchIndex(LogWindowSource source)
+    {
+        m_source = source;
+    }
+
+    /**
+     * Хранимые записи, содержащие все слова запроса (без учёта регистра), по порядку.
+     */
+    synchronized List<LogEntry> search(String query)
+    {
+        List<String> words = tokenize(query);
+        if (words.isEmpty())
+        {
+            return new ArrayList<>();
+        }
+        long first = catchUp();
+
+        Postings smallest = null;
+        List<Postings> lists = new ArrayList<>(words.size());
+        for (String word : words)
+        {
+            Postings postings = m_postings.get(word);
+            if (postings == null)
+            {
+                return new ArrayList<>();
+            }
+            postings.trim(first);
+            lists.add(postings);
+            if (smallest == null || postings.size() < smallest.size())
+            {
+                smallest = postings;
+            }
+        }
+
+        List<LogEntry> result = new ArrayList<>();
+        for (int i = smallest.m_iStart; i < smallest.m_iEnd; i++)
+        {
+            long sequence = smallest.m_sequences[i];
+            if (containsAll(lists, sequence))
+            {
+                LogEntry entry = m_source.entryAt(sequence);
+                if (entry != null)
+                {
+                    result.add(entry);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Индексирует записи, появившиеся с прошлого поиска; возвращает номер самой старой хранимой
+    private long catchUp()
+    {
+        long first = m_source.getFirstInMemorySequence();
+        for (LogEntry entry : m_source.entriesSince(Math.max(m_lIndexedBefore, first)))
+        {
+            long sequence = entry.getSequence();
+            for (String word : tokenize(entry.getMessage()))
+            {
+                m_postings.computeIfAbsent(word, w -> new Postings()).add(sequence);
+            }
+            m_lIndexedBefore = sequence + 1;
+            m_lIndexedSinceSweep++;
+        }
+        // Слова, встречавшиеся только в вытесненных записях, удаляются целиком
+        if (m_lIndexedSinceSweep > m_source.getQueueLength())
+        {
+            Iterator<Postings> iterator = m_postings.values().iterator();
+            while (iterator.hasNext())
+            {
+                Postings postings = iterator.next();
+                postings.trim(first);
+                if (postings.size() == 0)
+                {
+                    iterator.remove();
+                }
+            }
+            m_lIndexedSinceSweep = 0;
+        }
+        return first;
+    }
+
+    private static boolean containsAll(List<Postings> lists, long sequence)
+    {
+        for (Postings postings : lists)
+        {
+            if (!postings.contains(sequence))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static List<String> tokenize(String text)
+    {
+        List<String> words = new ArrayList<>();
+        if (text == null)
+        {
+            return words;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++)
+        {
+            boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letter && start < 0)
+            {
+                start = i;
+            }
+            else if (!letter && start >= 0)
+            {
+                words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static final class Postings
+    {
+        private long[] m_sequences = new long[4];
+        private int m_iStart = 0;
+        private int m_iEnd = 0;
+
+        void add(long sequence)
+        {
+            // Слово, повторённое в одном сообщении, записывается один раз
+            if (m_iEnd > m_iStart && m_sequences[m_iEnd - 1] == sequence)
+            {
+                return;
+            }
+            if (m_iEnd == m_sequences.length)
+            {
+                int size = size();
+                if (m_iStart > size)
+                {
+                    System.arraycopy(m_sequences, m_iStart, m_sequences, 0, size);
+                }
+                else
+                {
+                    long[] grown = new long[m_sequences.length * 2];
+                    System.arraycopy(m_sequences, m_iStart, grown, 0, size);
+                    m_sequences = grown;
+                }
+                m_iStart = 0;
+                m_iEnd = size;
+            }
+            m_sequences[m_iEnd++] = sequence;
+        }
+
+        void trim(long first)
+        {
+            while (m_iStart < m_iEnd && m_sequences[m_iStart] < first)
+            {
+                m_iStart++;
+            }
+        }
+
+        boolean contains(long sequence)
+        {
+            return Arrays.binarySearch(m_sequences, m_iStart, m_iEnd, sequence) >= 0;
+        }
+
+        int size()
+        {
+            return m_iEnd - m_iStart;
+        }
+    }
+}
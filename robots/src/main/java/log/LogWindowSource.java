@@ -3,27 +3,92 @@ package log;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * 09.03.2025
  * слушатели удаляются из списка m_listeners в методе unregisterListener
  * ограничено количество сообщений в логе величиной m_iQueueLength.
+ *
+ * Сообщения хранятся в кольцевом буфере фиксированного размера без блокировок:
+ * писатель атомарно получает следующий номер записи и кладёт запись в ячейку
+ * (номер % m_iQueueLength), затирая самую старую. Читатель обращается к записи
+ * по индексу за O(1) и по номеру внутри записи проверяет, что ячейка уже
+ * заполнена нужной записью, а не ещё пишется и не перезаписана.
+ * Номер записи служит штампом ячейки: писатель, который задержался между
+ * получением номера и записью и которого обогнали на круг, не затирает более
+ * новую запись - ячейка заменяется через CAS, только если в ней запись старше.
+ *
+ * Если задана задержка уведомлений, слушатели оповещаются не из потока писателя,
+ * а из общего фонового потока, не чаще одного раза за задержку: пачка из тысяч
+ * сообщений превращается в несколько обновлений окна.
+ *
+ * Сообщения ниже минимального уровня отбрасываются до создания LogEntry и лишь
+ * учитываются в счётчиках; по хранимым сообщениям можно искать через search().
+ *
+ * С журналом на диске (LogJournal) каждая запись передаётся в его очередь, а индексы
+ * get()/range() охватывают всю историю журнала: 0 - самая старая запись на диске.
+ * Записи, уже вытесненные из кольца, читаются из журнала.
  */
 
 public class LogWindowSource {
     private final int m_iQueueLength;
-    private final LinkedList<LogEntry> m_messages; // using LinkedList to delete old messages
+    private final AtomicReferenceArray<LogEntry> m_slots;
+    // Номер, который получит следующая запись
+    private final AtomicLong m_nextSequence = new AtomicLong();
+    // Записи с номером меньше этого удалены через clear()
+    private volatile long m_lClearedBefore = 0;
+
+    // 0 - уведомлять синхронно при каждом изменении
+    private final long m_lNotifyDelayMillis;
+    private final AtomicBoolean m_notificationPending = new AtomicBoolean();
+
+    private volatile LogLevel m_minLevel = LogLevel.Trace;
+    // Сколько сообщений каждого уровня принято и сколько отброшено фильтром
+    private final AtomicLongArray m_acceptedCounts = new AtomicLongArray(LogLevel.values().length);
+    private final AtomicLongArray m_filteredCounts = new AtomicLongArray(LogLevel.values().length);
+    private final LogSearchIndex m_searchIndex = new LogSearchIndex(this);
+    // null - только память
+    private final LogJournal m_journal;
 
     // Теперь используем WeakReference для хранения слушателей
     private final ArrayList<WeakReference<LogChangeListener>> m_listeners;
     private volatile LogChangeListener[] m_activeListeners;
 
     public LogWindowSource(int iQueueLength) {
+        this(iQueueLength, 0);
+    }
+
+    /**
+     * @param iQueueLength       сколько последних сообщений хранить
+     * @param lNotifyDelayMillis за какой интервал объединять уведомления слушателей (0 - без объединения)
+     */
+    public LogWindowSource(int iQueueLength, long lNotifyDelayMillis) {
+        this(iQueueLength, lNotifyDelayMillis, null);
+    }
+
+    /**
+     * @param journal журнал на диске, куда дублируются записи; нумерация продолжает его историю
+     */
+    public LogWindowSource(int iQueueLength, long lNotifyDelayMillis, LogJournal journal) {
+        if (iQueueLength <= 0) {
+            throw new IllegalArgumentException("Queue length must be positive: " + iQueueLength);
+        }
         m_iQueueLength = iQueueLength;
-        m_messages = new LinkedList<>();
+        m_slots = new AtomicReferenceArray<>(iQueueLength);
         m_listeners = new ArrayList<>();
+        m_lNotifyDelayMillis = lNotifyDelayMillis;
+        m_journal = journal;
+        if (journal != null) {
+            m_nextSequence.set(journal.getNextSequence());
+        }
     }
 
     public void registerListener(LogChangeListener listener) {
@@ -44,19 +109,115 @@ public class LogWindowSource {
     }
 
     public void append(LogLevel logLevel, String strMessage) {
-        LogEntry entry = new LogEntry(logLevel, strMessage);
-        synchronized(m_messages) {
-            if (m_messages.size() >= m_iQueueLength) {
-                m_messages.poll();
+        append(logLevel, strMessage, LogEntry.NO_ARGUMENTS);
+    }
+
+    /**
+     * Добавляет запись с шаблоном "{}"; текст будет собран, только когда его прочитают.
+     */
+    public void append(LogLevel logLevel, String strTemplate, Object... arguments) {
+        if (!isEnabled(logLevel)) {
+            m_filteredCounts.incrementAndGet(logLevel.ordinal());
+            return;
+        }
+        m_acceptedCounts.incrementAndGet(logLevel.ordinal());
+        LogEntry entry = store(logLevel, strTemplate, arguments);
+        if (m_journal != null) {
+            // Журнал сам упорядочит записи по номерам и запишет их в своём потоке
+            m_journal.offer(entry);
+        }
+
+        notifyListeners();
+    }
+
+    private LogEntry store(LogLevel logLevel, String strTemplate, Object[] arguments) {
+        LogEntry entry = claim(logLevel, strTemplate, arguments);
+        publish(entry);
+        return entry;
+    }
+
+    // Получает номер для записи; в кольце она появится после publish()
+    LogEntry claim(LogLevel logLevel, String strTemplate, Object[] arguments) {
+        return new LogEntry(logLevel, strTemplate, arguments, m_nextSequence.getAndIncrement(),
+                System.currentTimeMillis(), Thread.currentThread().getName());
+    }
+
+    // Кладёт запись в её ячейку, если ячейку ещё не заняла запись с более поздним номером
+    void publish(LogEntry entry) {
+        int slot = slotOf(entry.getSequence());
+        LogEntry current = m_slots.get(slot);
+        while (current == null || current.getSequence() < entry.getSequence()) {
+            if (m_slots.compareAndSet(slot, current, entry)) {
+                return;
             }
-            m_messages.add(entry);
+            current = m_slots.get(slot);
+        }
+        // Запись уже вытеснена из кольца новым кругом
+    }
+
+    /**
+     * Будет ли сохранено сообщение этого уровня. Вызывающий код может проверить
+     * это заранее, чтобы не собирать текст сообщения впустую.
+     */
+    public boolean isEnabled(LogLevel logLevel) {
+        return logLevel.level() >= m_minLevel.level();
+    }
+
+    public LogLevel getMinLevel() {
+        return m_minLevel;
+    }
+
+    public void setMinLevel(LogLevel minLevel) {
+        m_minLevel = minLevel;
+    }
+
+    /**
+     * Сколько сообщений уровня принято источником за всё время (включая вытесненные).
+     */
+    public long getAcceptedCount(LogLevel logLevel) {
+        return m_acceptedCounts.get(logLevel.ordinal());
+    }
+
+    /**
+     * Сколько сообщений уровня отброшено из-за минимального уровня.
+     */
+    public long getFilteredCount(LogLevel logLevel) {
+        return m_filteredCounts.get(logLevel.ordinal());
+    }
+
+    /**
+     * Хранимые записи, в которых встречаются все слова запроса, от старых к новым.
+     */
+    public List<LogEntry> search(String query) {
+        return m_searchIndex.search(query);
+    }
+
+    public void clear() {
+        m_lClearedBefore = m_nextSequence.get();
+        notifyListeners();
+    }
+
+    private void notifyListeners() {
+        if (m_lNotifyDelayMillis <= 0) {
+            deliverNotification();
+            return;
         }
+        // Пока уведомление запланировано, новые изменения войдут в него же
+        if (m_notificationPending.compareAndSet(false, true)) {
+            Notifier.EXECUTOR.schedule(() -> {
+                m_notificationPending.set(false);
+                deliverNotification();
+            }, m_lNotifyDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
 
+    private void deliverNotification() {
         // Определение активных слушателей
         LogChangeListener[] activeListeners = m_activeListeners;
         if (activeListeners == null) {
             synchronized (m_listeners) {
-                if (m_activeListeners == null) {
+                activeListeners = m_activeListeners;
+                if (activeListeners == null) {
                     List<LogChangeListener> activeList = new ArrayList<>();
                     m_listeners.removeIf(ref -> {
                         LogChangeListener l = ref.get();
@@ -71,44 +232,141 @@ public class LogWindowSource {
                 }
             }
         }
-        assert activeListeners != null;
         for (LogChangeListener listener : activeListeners) {
-            listener.onLogChanged();
+            try {
+                listener.onLogChanged();
+            } catch (RuntimeException e) {
+                // Ошибка одного слушателя не должна мешать остальным и потоку уведомлений
+                e.printStackTrace();
+            }
         }
     }
 
-    public void clear() {
-        synchronized(m_messages) {
-            m_messages.clear();
+    public int size() {
+        long next = m_nextSequence.get();
+        return (int) (next - firstSequence(next));
+    }
+
+    /**
+     * Запись с индексом index (0 - самая старая из хранимых) или null,
+     * если индекс вне диапазона либо запись ещё пишется другим потоком.
+     */
+    public LogEntry get(int index) {
+        long next = m_nextSequence.get();
+        long sequence = firstSequence(next) + index;
+        if (index < 0 || sequence >= next) {
+            return null;
         }
+        return entryAt(sequence);
+    }
 
-        LogChangeListener[] activeListeners = m_activeListeners;
-        if (activeListeners != null) {
-            for (LogChangeListener listener : activeListeners) {
-                listener.onLogChanged();
-            }
+    public Iterable<LogEntry> range(int startFrom, int count) {
+        long next = m_nextSequence.get();
+        long first = firstSequence(next);
+        if (startFrom < 0 || first + startFrom >= next) {
+            return Collections.emptyList();
         }
+        long to = Math.min(first + startFrom + (long) count, next);
+        return entriesBetween(first + startFrom, to, next, false);
     }
 
-    public int size() {
-        synchronized(m_messages) {
-            return m_messages.size();
+    /**
+     * Номер самой старой из хранимых записей.
+     */
+    public long getFirstSequence() {
+        return firstSequence(m_nextSequence.get());
+    }
+
+    /**
+     * Хранимые записи с номером не меньше sequence, по порядку. Список обрывается
+     * перед первой записью, которую другой поток ещё не дописал: она придёт
+     * со следующим уведомлением, и пропусков у читателя не будет.
+     */
+    public List<LogEntry> entriesSince(long sequence) {
+        long next = m_nextSequence.get();
+        return entriesBetween(Math.max(sequence, firstSequence(next)), next, next, true);
+    }
+
+    /**
+     * Номер первой записи начиная с sequence, которую другой поток ещё не дописал,
+     * либо номер следующей записи. Записи до него можно читать без пропусков.
+     */
+    public long getWrittenEnd(long sequence) {
+        long next = m_nextSequence.get();
+        long end = Math.max(sequence, firstInMemory(next));
+        while (end < next && entryAt(end) != null) {
+            end++;
         }
+        return end;
     }
 
-    public Iterable<LogEntry> range(int startFrom, int count) {
-        synchronized(m_messages) {
-            if (startFrom < 0 || startFrom >= m_messages.size()) {
-                return Collections.emptyList();
+    /**
+     * Записи, хранимые в памяти (без истории журнала).
+     */
+    public Iterable<LogEntry> all() {
+        long next = m_nextSequence.get();
+        return entriesBetween(firstInMemory(next), next, next, false);
+    }
+
+    int getQueueLength() {
+        return m_iQueueLength;
+    }
+
+    long getFirstInMemorySequence() {
+        return firstInMemory(m_nextSequence.get());
+    }
+
+    // Записи [from, to): вытесненные из кольца читаются из журнала одним запросом
+    private List<LogEntry> entriesBetween(long from, long to, long next, boolean stopAtUnwritten) {
+        List<LogEntry> result = new ArrayList<>((int) Math.max(0, Math.min(to - from, m_iQueueLength)));
+        long ringStart = next - m_iQueueLength;
+        if (m_journal != null && from < ringStart) {
+            long journalTo = Math.min(to, ringStart);
+            result.addAll(m_journal.read(from, (int) Math.min(journalTo - from, Integer.MAX_VALUE)));
+            from = journalTo;
+        }
+        for (long sequence = from; sequence < to; sequence++) {
+            LogEntry entry = entryAt(sequence);
+            if (entry != null) {
+                result.add(entry);
+            } else if (stopAtUnwritten) {
+                break;
             }
-            int indexTo = Math.min(startFrom + count, m_messages.size());
-            return new ArrayList<>(m_messages.subList(startFrom, indexTo));
         }
+        return result;
     }
 
-    public Iterable<LogEntry> all() {
-        synchronized(m_messages) {
-            return new ArrayList<>(m_messages);
+    private long firstInMemory(long next) {
+        return Math.max(m_lClearedBefore, next - m_iQueueLength);
+    }
+
+    private long firstSequence(long next) {
+        long first = next - m_iQueueLength;
+        if (m_journal != null) {
+            first = Math.min(first, m_journal.getFirstSequence());
+        }
+        return Math.max(m_lClearedBefore, first);
+    }
+
+    LogEntry entryAt(long sequence) {
+        if (m_journal != null && sequence < m_nextSequence.get() - m_iQueueLength) {
+            List<LogEntry> found = m_journal.read(sequence, 1);
+            return found.isEmpty() ? null : found.get(0);
         }
+        LogEntry entry = m_slots.get(slotOf(sequence));
+        return entry != null && entry.getSequence() == sequence ? entry : null;
+    }
+
+    private int slotOf(long sequence) {
+        return (int) (sequence % m_iQueueLength);
+    }
+
+    // Общий фоновый поток уведомлений; создаётся только при первом отложенном уведомлении
+    private static final class Notifier {
+        static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "log-notifier");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 }
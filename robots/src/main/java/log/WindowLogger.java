@@ -2,26 +2,205 @@ package log;
 
 import lombok.Getter;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 public final class WindowLogger
 {
+    private static final long NOTIFY_DELAY_MILLIS = 50;
+    // Каталог журнала на диске; если свойство не задано, лог хранится только в памяти
+    public static final String JOURNAL_DIRECTORY_PROPERTY = "robots.log.journal";
+
     @Getter
     private static final LogWindowSource defaultLogSource;
     static {
-        defaultLogSource = new LogWindowSource(100);
+        // Окна лога обновляются не чаще раза в 50 мс, сколько бы сообщений ни пришло
+        defaultLogSource = new LogWindowSource(100, NOTIFY_DELAY_MILLIS, openJournal());
+        // Trace-сообщения движка по умолчанию не сохраняются
+        defaultLogSource.setMinLevel(LogLevel.Debug);
     }
     
     private WindowLogger()
     {
     }
 
+    private static LogJournal openJournal()
+    {
+        String directory = System.getProperty(JOURNAL_DIRECTORY_PROPERTY);
+        if (directory == null || directory.isBlank())
+        {
+            return null;
+        }
+        try
+        {
+            LogJournal journal = new LogJournal(Path.of(directory));
+            Runtime.getRuntime().addShutdownHook(new Thread(journal::close, "log-journal-close"));
+            return journal;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            // Без журнала лог продолжает работать в памяти
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Проверка перед сборкой дорогого сообщения: if (WindowLogger.isEnabled(LogLevel.Trace)) ...
+     */
+    public static boolean isEnabled(LogLevel logLevel)
+    {
+        return defaultLogSource.isEnabled(logLevel);
+    }
+
+    /**
+     * Запись по шаблону с плейсхолдерами "{}": log(LogLevel.Trace, "Moved to ({}, {})", x, y).
+     * Пока уровень отключён, ничего не создаётся; включён - сохраняются шаблон и аргументы,
+     * а текст собирается, только когда его прочитают. Перегрузки с одним и двумя
+     * аргументами не создают массив для отброшенной записи.
+     */
+    public static void log(LogLevel logLevel, String strTemplate, Object argument)
+    {
+        if (defaultLogSource.isEnabled(logLevel))
+        {
+            defaultLogSource.append(logLevel, strTemplate, argument);
+        }
+    }
+
+    public static void log(LogLevel logLevel, String strTemplate, Object first, Object second)
+    {
+        if (defaultLogSource.isEnabled(logLevel))
+        {
+            defaultLogSource.append(logLevel, strTemplate, first, second);
+        }
+    }
+
+    public static void log(LogLevel logLevel, String strTemplate, Object... arguments)
+    {
+        if (defaultLogSource.isEnabled(logLevel))
+        {
+            defaultLogSource.append(logLevel, strTemplate, arguments);
+        }
+    }
+
+    public static void trace(String strMessage)
+    {
+        defaultLogSource.append(LogLevel.Trace, strMessage);
+    }
+
+    public static void trace(String strTemplate, Object argument)
+    {
+        log(LogLevel.Trace, strTemplate, argument);
+    }
+
+    public static void trace(String strTemplate, Object first, Object second)
+    {
+        log(LogLevel.Trace, strTemplate, first, second);
+    }
+
+    public static void trace(String strTemplate, Object... arguments)
+    {
+        log(LogLevel.Trace, strTemplate, arguments);
+    }
+
     public static void debug(String strMessage)
     {
         defaultLogSource.append(LogLevel.Debug, strMessage);
     }
-    
+
+    public static void debug(String strTemplate, Object argument)
+    {
+        log(LogLevel.Debug, strTemplate, argument);
+    }
+
+    public static void debug(String strTemplate, Object first, Object second)
+    {
+        log(LogLevel.Debug, strTemplate, first, second);
+    }
+
+    public static void debug(String strTemplate, Object... arguments)
+    {
+        log(LogLevel.Debug, strTemplate, arguments);
+    }
+
+    public static void info(String strMessage)
+    {
+        defaultLogSource.append(LogLevel.Info, strMessage);
+    }
+
+    public static void info(String strTemplate, Object argument)
+    {
+        log(LogLevel.Info, strTemplate, argument);
+    }
+
+    public static void info(String strTemplate, Object first, Object second)
+    {
+        log(LogLevel.Info, strTemplate, first, second);
+    }
+
+    public static void info(String strTemplate, Object... arguments)
+    {
+        log(LogLevel.Info, strTemplate, arguments);
+    }
+
+    public static void warning(String strMessage)
+    {
+        defaultLogSource.append(LogLevel.Warning, strMessage);
+    }
+
+    public static void warning(String strTemplate, Object argument)
+    {
+        log(LogLevel.Warning, strTemplate, argument);
+    }
+
+    public static void warning(String strTemplate, Object first, Object second)
+    {
+        log(LogLevel.Warning, strTemplate, first, second);
+    }
+
+    public static void warning(String strTemplate, Object... arguments)
+    {
+        log(LogLevel.Warning, strTemplate, arguments);
+    }
+
     public static void error(String strMessage)
     {
         defaultLogSource.append(LogLevel.Error, strMessage);
     }
 
+    public static void error(String strTemplate, Object argument)
+    {
+        log(LogLevel.Error, strTemplate, argument);
+    }
+
+    public static void error(String strTemplate, Object first, Object second)
+    {
+        log(LogLevel.Error, strTemplate, first, second);
+    }
+
+    public static void error(String strTemplate, Object... arguments)
+    {
+        log(LogLevel.Error, strTemplate, arguments);
+    }
+
+    public static void fatal(String strMessage)
+    {
+        defaultLogSource.append(LogLevel.Fatal, strMessage);
+    }
+
+    public static void fatal(String strTemplate, Object argument)
+    {
+        log(LogLevel.Fatal, strTemplate, argument);
+    }
+
+    public static void fatal(String strTemplate, Object first, Object second)
+    {
+        log(LogLevel.Fatal, strTemplate, first, second);
+    }
+
+    public static void fatal(String strTemplate, Object... arguments)
+    {
+        log(LogLevel.Fatal, strTemplate, arguments);
+    }
+
 }
@@ -0,0 +1,134 @@
+package game.engine;
+
+import game.mechanic.MovementHandler;
+import game.model.GameObject;
+import game.model.ObjectProperty;
+import log.LogEntry;
+import log.WindowLogger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameLoopTest {
+
+    private MovementHandler engine;
+    private GameObject hero;
+    private final AtomicInteger ticks = new AtomicInteger();
+    private GameLoop loop;
+
+    @BeforeEach
+    void setUp() {
+        engine = new MovementHandler(GridDimensions.of(50, 1));
+        hero = new GameObject(0, 0, null, "Hero", "hero");
+        hero.addProperty(ObjectProperty.PLAYER);
+        engine.addGameObject(hero);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (loop != null) {
+            loop.stop();
+        }
+    }
+
+    @Test
+    void testCommandsRunImmediatelyWhileLoopIsStopped() {
+        loop = new GameLoop(engine, GameLoop.DEFAULT_TICKS_PER_SECOND, ticks::incrementAndGet);
+
+        loop.submitMove(1, 0);
+        assertEquals(1, hero.getX(), "Без запущенного цикла ход выполняется сразу");
+        assertEquals(1, ticks.get());
+    }
+
+    @Test
+    void testMovesRunOnLoopThreadAndPublishOncePerTick() throws InterruptedException {
+        CountDownLatch published = new CountDownLatch(1);
+        loop = new GameLoop(engine, GameLoop.DEFAULT_TICKS_PER_SECOND, () -> {
+            ticks.incrementAndGet();
+            published.countDown();
+        });
+        loop.start();
+
+        loop.submitMove(1, 0);
+        assertTrue(published.await(5, TimeUnit.SECONDS), "Такт должен опубликовать результат");
+        loop.stop();
+        assertEquals(1, hero.getX());
+        assertEquals(1, ticks.get());
+    }
+
+    @Test
+    void testKeyRepeatDoesNotPileUp() {
+        // Один такт в секунду: все нажатия успевают накопиться до первого такта
+        loop = new GameLoop(engine, 1, ticks::incrementAndGet);
+        loop.start();
+        for (int i = 0; i < 10; i++) {
+            loop.submitMove(1, 0);
+        }
+        loop.stop();
+
+        assertEquals(3, hero.getX(), "Лишние повторы клавиши отбрасываются");
+        assertEquals(1, ticks.get(), "Все накопленные ходы выполняются одним пакетом");
+    }
+
+    @Test
+    void testCommandSubmittedWhileStoppingRunsAfterTheLastTick() throws InterruptedException {
+        loop = new GameLoop(engine, GameLoop.DEFAULT_TICKS_PER_SECOND, ticks::incrementAndGet);
+        CountDownLatch inTick = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        loop.start();
+        loop.submit(() -> {
+            inTick.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            order.add("slow");
+        });
+        assertTrue(inTick.await(5, TimeUnit.SECONDS));
+
+        Thread stopper = new Thread(loop::stop);
+        stopper.start();
+        Thread caller = Thread.currentThread();
+        loop.submit(() -> order.add(Thread.currentThread() == caller ? "caller" : "queued"));
+        assertEquals(List.of(), order, "Пока такт идёт, новая команда ждёт в очереди");
+
+        release.countDown();
+        stopper.join(5000);
+        assertFalse(stopper.isAlive());
+        assertFalse(loop.isRunning());
+        assertEquals(List.of("slow", "queued"), order, "Команда не теряется и не выполняется рядом с тактом");
+    }
+
+    @Test
+    void testFailedCommandIsLoggedWithStackTrace() {
+        loop = new GameLoop(engine, GameLoop.DEFAULT_TICKS_PER_SECOND, ticks::incrementAndGet);
+        loop.start();
+        loop.submit(() -> {
+            throw new IllegalStateException("broken command");
+        });
+        loop.submitMove(1, 0);
+        loop.stop();
+
+        assertEquals(1, hero.getX(), "Упавшая команда не мешает следующим");
+        String logged = null;
+        for (LogEntry entry : WindowLogger.getDefaultLogSource().all()) {
+            if (entry.getMessage().startsWith("Game loop command failed")) {
+                logged = entry.getMessage();
+            }
+        }
+        assertNotNull(logged);
+        assertTrue(logged.contains("IllegalStateException: broken command"));
+        assertTrue(logged.contains("at game.engine.GameLoopTest"), "В сообщении есть стек вызовов");
+    }
+}
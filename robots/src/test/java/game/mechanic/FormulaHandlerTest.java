@@ -8,6 +8,7 @@ import gui.ui.CoordinateGrid;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -171,6 +172,70 @@ public class FormulaHandlerTest {
         assertTrue(box.hasProperty(ObjectProperty.WIN), "Box should have WIN property");
     }
 
+    @Test
+    void testRuleDiffReportsAddedAndRemovedFormulas() {
+        GameObject box = new GameObject(5, 5, null, "Box", "box");
+        movementHandler.addGameObject(box);
+
+        FormulaElement noun = addNoun(2, 2, "box");
+        addVerb(3, 2);
+        addProperty(4, 2, ObjectProperty.STOP);
+
+        formulaHandler.processFormulas();
+        FormulaDiff diff = formulaHandler.getLastDiff();
+        assertEquals(1, diff.getAdded().size(), "BOX IS STOP should be reported as added");
+        assertTrue(diff.getRemoved().isEmpty(), "Nothing should be removed on the first pass");
+
+        noun.setPosition(2, 12);
+        formulaHandler.processFormulas();
+        diff = formulaHandler.getLastDiff();
+        assertTrue(diff.getAdded().isEmpty(), "Breaking a formula adds nothing");
+        assertEquals(1, diff.getRemoved().size(), "BOX IS STOP should be reported as removed");
+        assertEquals(ObjectProperty.STOP, diff.getRemoved().get(0).getPropertyValue());
+    }
+
+    @Test
+    void testUnrelatedElementMoveKeepsRules() {
+        GameObject box = new GameObject(5, 5, null, "Box", "box");
+        movementHandler.addGameObject(box);
+        addFormula(2, 2, "box", ObjectProperty.STOP, true);
+        FormulaElement loose = addProperty(15, 15, ObjectProperty.WIN);
+
+        formulaHandler.processFormulas();
+        loose.setPosition(16, 15);
+
+        boolean changed = formulaHandler.processFormulas();
+        assertFalse(changed, "Moving an element that forms no formula should not change the rules");
+        assertTrue(formulaHandler.getLastDiff().isEmpty(), "Rule diff should be empty");
+        assertTrue(box.hasProperty(ObjectProperty.STOP), "Box should keep STOP property");
+        assertEquals(1, formulaHandler.getActiveFormulas().size());
+    }
+
+    @Test
+    void testPropertyKeptWhileTypeOrLabelRuleRemains() {
+        // Object matches formulas both by type ("box") and by label ("crate")
+        GameObject box = new GameObject(5, 5, null, "Crate", "box");
+        movementHandler.addGameObject(box);
+
+        FormulaElement boxNoun = addNoun(2, 2, "box");
+        addVerb(3, 2);
+        addProperty(4, 2, ObjectProperty.STOP);
+        FormulaElement crateNoun = addNoun(2, 8, "crate");
+        addVerb(3, 8);
+        addProperty(4, 8, ObjectProperty.STOP);
+
+        formulaHandler.processFormulas();
+        assertTrue(box.hasProperty(ObjectProperty.STOP), "Box should have STOP property");
+
+        boxNoun.setPosition(15, 15);
+        formulaHandler.processFormulas();
+        assertTrue(box.hasProperty(ObjectProperty.STOP), "CRATE IS STOP still applies by label");
+
+        crateNoun.setPosition(17, 17);
+        formulaHandler.processFormulas();
+        assertFalse(box.hasProperty(ObjectProperty.STOP), "No formula gives STOP any more");
+    }
+
     // Helper methods for creating formula elements
     private FormulaElement addNoun(int x, int y, String type) {
         FormulaElement noun = FormulaElementFactory.createNoun(x, y, type);
@@ -1,12 +1,17 @@
 package game.mechanic;
 
+import game.engine.GameEventListener;
+import game.engine.GridDimensions;
 import game.model.GameObject;
 import game.model.ObjectProperty;
+import game.model.WorldSnapshot;
 import gui.ui.CoordinateGrid;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -130,6 +135,188 @@ class MovementHandlerTest {
         assertArrayEquals(new int[]{8, 12}, box.getPosition(), "Позиция коробки не должна меняться");
     }
 
+    @Test
+    void testBlockedChainLeavesBoxesInPlace() {
+        // Цепочка из трёх коробок упирается в стену у края
+        GameObject box2 = new GameObject(13, 10, null, "Коробка2", "box");
+        box2.addProperty(ObjectProperty.PUSHABLE);
+        GameObject box3 = new GameObject(14, 10, null, "Коробка3", "box");
+        box3.addProperty(ObjectProperty.PUSHABLE);
+        movementHandler.addGameObject(box2);
+        movementHandler.addGameObject(box3);
+        wall.setPosition(15, 10);
+        player.setPosition(11, 10);
+
+        boolean moved = movementHandler.movePlayers(1, 0);
+        assertFalse(moved, "Цепочка упирается в стену");
+        assertArrayEquals(new int[]{11, 10}, player.getPosition());
+        assertArrayEquals(new int[]{12, 10}, box.getPosition(), "Ни одна коробка не должна сдвинуться");
+        assertArrayEquals(new int[]{13, 10}, box2.getPosition(), "Ни одна коробка не должна сдвинуться");
+        assertArrayEquals(new int[]{14, 10}, box3.getPosition(), "Ни одна коробка не должна сдвинуться");
+    }
+
+    @Test
+    void testLongChainIsPushedWithoutRecursion() {
+        int length = 20_000;
+        MovementHandler engine = new MovementHandler(GridDimensions.of(length + 2, 1));
+        GameObject hero = new GameObject(0, 0, null, "Hero", "hero");
+        hero.addProperty(ObjectProperty.PLAYER);
+        engine.addGameObject(hero);
+        List<GameObject> crates = new ArrayList<>();
+        for (int x = 1; x <= length; x++) {
+            GameObject crate = new GameObject(x, 0, null, "Crate", "crate");
+            crate.addProperty(ObjectProperty.PUSHABLE);
+            engine.addGameObject(crate);
+            crates.add(crate);
+        }
+
+        assertTrue(engine.movePlayers(1, 0), "Длинная цепочка должна сдвинуться целиком");
+        assertEquals(1, hero.getX());
+        for (int i = 0; i < length; i++) {
+            assertEquals(i + 2, crates.get(i).getX());
+        }
+        assertFalse(engine.movePlayers(1, 0), "Цепочка упёрлась в край поля");
+    }
+
+    @Test
+    void testPlayersMoveTogetherAndDieOnlyAtTheEnd() {
+        MovementHandler engine = new MovementHandler(GridDimensions.of(5, 1));
+        GameObject front = new GameObject(1, 0, null, "Front", "hero");
+        front.addProperty(ObjectProperty.PLAYER);
+        GameObject back = new GameObject(0, 0, null, "Back", "hero");
+        back.addProperty(ObjectProperty.PLAYER);
+        GameObject lava = new GameObject(2, 0, null, "Lava", "lava");
+        lava.addProperty(ObjectProperty.KILL);
+        engine.addGameObject(back);
+        engine.addGameObject(front);
+        engine.addGameObject(lava);
+
+        assertTrue(engine.movePlayers(1, 0));
+        assertEquals(List.of(back), engine.getPlayerObjects(), "Погибает только игрок, вставший на KILL");
+        assertEquals(1, back.getX(), "Задний игрок идёт следом в том же шаге");
+        assertFalse(engine.isGameOver());
+
+        engine.movePlayers(1, 0);
+        assertTrue(engine.getPlayerObjects().isEmpty());
+        assertTrue(engine.isGameOver(), "Игра окончена, когда игроков не осталось");
+    }
+
+    @Test
+    void testPlayersSharingChainMoveTheSameInAnyOrder() {
+        for (boolean frontFirst : new boolean[]{true, false}) {
+            MovementHandler engine = new MovementHandler(GridDimensions.of(6, 1));
+            GameObject back = new GameObject(0, 0, null, "Back", "hero");
+            back.addProperty(ObjectProperty.PLAYER);
+            GameObject crate = new GameObject(1, 0, null, "Crate", "crate");
+            crate.addProperty(ObjectProperty.PUSHABLE);
+            GameObject front = new GameObject(2, 0, null, "Front", "hero");
+            front.addProperty(ObjectProperty.PLAYER);
+            front.addProperty(ObjectProperty.PUSHABLE);
+            GameObject lastCrate = new GameObject(3, 0, null, "Crate", "crate");
+            lastCrate.addProperty(ObjectProperty.PUSHABLE);
+            if (frontFirst) {
+                engine.addGameObject(front);
+                engine.addGameObject(back);
+            } else {
+                engine.addGameObject(back);
+                engine.addGameObject(front);
+            }
+            engine.addGameObject(crate);
+            engine.addGameObject(lastCrate);
+
+            assertTrue(engine.movePlayers(1, 0));
+            assertEquals(List.of(1, 2, 3, 4), List.of(back.getX(), crate.getX(), front.getX(), lastCrate.getX()),
+                    "Общая цепочка сдвигается один раз, порядок игроков не важен");
+
+            engine.movePlayers(1, 0);
+            assertFalse(engine.movePlayers(1, 0), "Цепочка упёрлась в край поля");
+            assertEquals(List.of(2, 3, 4, 5), List.of(back.getX(), crate.getX(), front.getX(), lastCrate.getX()));
+        }
+    }
+
+    @Test
+    void testStopPlayersMoveAsOneTrain() {
+        MovementHandler engine = new MovementHandler(GridDimensions.of(5, 1));
+        List<GameObject> train = new ArrayList<>();
+        for (int x = 0; x < 3; x++) {
+            GameObject car = new GameObject(x, 0, null, "Car", "car");
+            car.addProperty(ObjectProperty.PLAYER);
+            car.addProperty(ObjectProperty.STOP);
+            engine.addGameObject(car);
+            train.add(car);
+        }
+
+        assertTrue(engine.movePlayers(1, 0));
+        assertEquals(List.of(1, 2, 3), train.stream().map(GameObject::getX).collect(Collectors.toList()),
+                "Игрок со свойством STOP не мешает тем, кто идёт за ним");
+        engine.movePlayers(1, 0);
+        assertFalse(engine.movePlayers(1, 0), "Передний упёрся в край - стоят все");
+        assertEquals(List.of(2, 3, 4), train.stream().map(GameObject::getX).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testFirstKillOrWinInWorldOrderDecidesSharedCell() {
+        MovementHandler engine = new MovementHandler(GridDimensions.of(4, 1));
+        GameObject hero = new GameObject(0, 0, null, "Hero", "hero");
+        hero.addProperty(ObjectProperty.PLAYER);
+        GameObject lava = new GameObject(1, 0, null, "Lava", "lava");
+        lava.addProperty(ObjectProperty.KILL);
+        lava.addProperty(ObjectProperty.PUSHABLE);
+        GameObject goal = new GameObject(2, 0, null, "Goal", "goal");
+        goal.addProperty(ObjectProperty.WIN);
+        GameObject second = new GameObject(3, 0, null, "Second", "hero");
+        second.addProperty(ObjectProperty.PLAYER);
+        engine.addGameObject(hero);
+        engine.addGameObject(lava);
+        engine.addGameObject(goal);
+        engine.addGameObject(second);
+
+        // Лава въезжает в клетку цели позже неё, но в мире стоит раньше
+        engine.movePlayers(1, 0);
+        assertArrayEquals(new int[]{2, 0}, lava.getPosition());
+        // Правило PUSH разорвано: второй игрок больше не выталкивает лаву
+        lava.removeProperty(ObjectProperty.PUSHABLE);
+        engine.movePlayers(-1, 0);
+
+        assertArrayEquals(new int[]{2, 0}, second.getPosition());
+        assertFalse(engine.isGameWon(), "Решает первый по порядку мира объект, а не первый в клетке");
+        assertFalse(engine.getGameObjects().contains(second));
+    }
+
+    @Test
+    void testChangedCellsAreReported() {
+        Set<String> changed = new HashSet<>();
+        movementHandler.addGameEventListener(new GameEventListener() {
+            @Override
+            public void onCellChanged(int x, int y) {
+                changed.add(x + "," + y);
+            }
+        });
+        player.setPosition(11, 10);
+        changed.clear();
+
+        movementHandler.movePlayers(1, 0);
+        assertEquals(Set.of("11,10", "12,10", "13,10"), changed,
+                "Перерисовать нужно только клетки игрока и сдвинутой коробки");
+    }
+
+    @Test
+    void testSnapshotFindsObjectsByCell() {
+        player.setPosition(11, 10);
+        movementHandler.movePlayers(1, 0);
+        WorldSnapshot snapshot = movementHandler.getSnapshot();
+
+        assertArrayEquals(new int[]{0, 1}, snapshot.indicesIn(12, 10, 13, 10),
+                "Игрок и сдвинутая коробка, в порядке мира");
+        assertArrayEquals(new int[]{2}, snapshot.indicesIn(0, 0, 8, 19), "Только стена");
+        assertEquals(0, snapshot.indicesIn(0, 0, 5, 5).length);
+
+        // Удаление сдвигает номера объектов, индекс клеток следует за ними
+        movementHandler.removeGameObject(player);
+        assertArrayEquals(new int[]{0}, movementHandler.getSnapshot().indicesIn(13, 10, 13, 10));
+        assertArrayEquals(new int[]{1}, movementHandler.getSnapshot().indicesIn(8, 10, 8, 10));
+    }
+
     @Test
     void testGetPlayerObject() {
         ArrayList<GameObject> retrievedPlayer = movementHandler.getPlayerObjects();
@@ -164,4 +351,54 @@ class MovementHandlerTest {
                 .collect(Collectors.toSet());
         assertEquals(expectedPositionsAfterMove, actualPositionsAfterMove, "Both players should have moved right");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRemovedObjectNoLongerBlocks() {
+        player.setPosition(9, 10);
+        movementHandler.removeGameObject(wall);
+
+        boolean moved = movementHandler.movePlayers(-1, 0);
+        assertTrue(moved, "Удалённая стена не должна блокировать клетку");
+        assertArrayEquals(new int[]{8, 10}, player.getPosition(), "Игрок должен занять клетку стены");
+    }
+
+    @Test
+    void testMovedObjectBlocksNewCell() {
+        // Стену переставляют напрямую, индекс клеток должен это заметить
+        wall.setPosition(11, 10);
+
+        boolean moved = movementHandler.movePlayers(1, 0);
+        assertFalse(moved, "Стена в новой клетке должна блокировать игрока");
+        assertArrayEquals(new int[]{10, 10}, player.getPosition(), "Позиция игрока не должна меняться");
+    }
+
+    @Test
+    void testEngineRunsHeadlessAndReportsEvents() {
+        MovementHandler engine = new MovementHandler(GridDimensions.of(5, 1));
+        GameObject hero = new GameObject(0, 0, null, "Hero", "hero");
+        hero.addProperty(ObjectProperty.PLAYER);
+        GameObject goal = new GameObject(2, 0, null, "Goal", "goal");
+        goal.addProperty(ObjectProperty.WIN);
+        engine.addGameObject(hero);
+        engine.addGameObject(goal);
+
+        List<String> events = new ArrayList<>();
+        engine.addGameEventListener(new GameEventListener() {
+            @Override
+            public void onMove() {
+                events.add("move");
+            }
+
+            @Override
+            public void onWin() {
+                events.add("win");
+            }
+        });
+
+        engine.movePlayers(1, 0);
+        engine.movePlayers(1, 0);
+
+        assertTrue(engine.isGameWon(), "Игрок должен дойти до цели");
+        assertEquals(List.of("move", "move", "win"), events, "Победа сообщается один раз, после шага");
+    }
+}
@@ -0,0 +1,160 @@
+package game.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorldStoreTest {
+
+    private WorldStore world;
+
+    @BeforeEach
+    void setUp() {
+        world = new WorldStore();
+    }
+
+    @Test
+    void testAttachedObjectReadsAndWritesStore() {
+        GameObject box = new GameObject(3, 4, null, "Box", "box");
+        box.addProperty(ObjectProperty.PUSHABLE);
+        world.add(box);
+
+        assertEquals(3, world.x(0));
+        assertEquals(4, world.y(0));
+        assertEquals(ObjectProperty.PUSHABLE.bit(), world.mask(0));
+
+        box.setPosition(7, 8);
+        box.addProperty(ObjectProperty.STOP);
+        assertEquals(7, world.x(0));
+        assertEquals(8, world.y(0));
+        assertEquals(ObjectProperty.PUSHABLE.bit() | ObjectProperty.STOP.bit(), world.mask(0));
+        assertTrue(box.hasProperty(ObjectProperty.STOP));
+    }
+
+    @Test
+    void testRemovedObjectKeepsItsState() {
+        GameObject box = new GameObject(1, 1, null, "Box", "box");
+        world.add(box);
+        box.setPosition(5, 6);
+        box.addProperty(ObjectProperty.WIN);
+
+        assertTrue(world.remove(box));
+        assertEquals(0, world.size());
+        assertArrayEquals(new int[]{5, 6}, box.getPosition());
+        assertTrue(box.hasProperty(ObjectProperty.WIN));
+    }
+
+    @Test
+    void testRemoveKeepsOrderOfOtherObjects() {
+        GameObject first = new GameObject(0, 0, null, "A", "a");
+        GameObject second = new GameObject(1, 0, null, "B", "b");
+        GameObject third = new GameObject(2, 0, null, "C", "c");
+        world.add(first);
+        world.add(second);
+        world.add(third);
+
+        world.remove(first);
+        third.setPosition(9, 9);
+
+        assertEquals(List.of(second, third), world.objects());
+        assertEquals(9, world.x(1), "Moved handle should still point at its own slot");
+    }
+
+    @Test
+    void testObjectCannotBelongToTwoWorlds() {
+        GameObject box = new GameObject(0, 0, null, "Box", "box");
+        world.add(box);
+        assertThrows(IllegalArgumentException.class, () -> new WorldStore().add(box));
+    }
+
+    @Test
+    void testStoreGrowsBeyondInitialCapacity() {
+        for (int i = 0; i < 1000; i++) {
+            world.add(new GameObject(i % 20, i / 20, null, "Wall", "wall"));
+        }
+        assertEquals(1000, world.size());
+        assertEquals(19, world.x(999));
+        assertEquals(49, world.y(999));
+        assertEquals("wall", world.handle(999).getType());
+    }
+
+    @Test
+    void testSnapshotIsNotAffectedByLaterMoves() {
+        GameObject box = new GameObject(1, 1, null, "Box", "box");
+        world.add(box);
+        WorldSnapshot first = world.snapshot(1);
+
+        box.setPosition(2, 1);
+        WorldSnapshot second = world.snapshot(2);
+
+        assertEquals(1, first.x(0), "Снимок не меняется вместе с миром");
+        assertEquals(2, second.x(0));
+        assertEquals(1, second.previousX(0), "Прежняя позиция берётся из предыдущего снимка");
+        assertSame(box, second.handle(0));
+    }
+
+    @Test
+    void testSnapshotSharesUnchangedBlocks() {
+        int count = WorldSnapshot.CHUNK_SIZE * 2 + 10;
+        List<GameObject> objects = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            GameObject wall = new GameObject(i % 20, i / 20, null, "Wall", "wall");
+            world.add(wall);
+            objects.add(wall);
+        }
+        WorldSnapshot first = world.snapshot(1);
+
+        objects.get(WorldSnapshot.CHUNK_SIZE + 5).setPosition(0, 0);
+        WorldSnapshot second = world.snapshot(2);
+
+        assertEquals(3, second.chunkCount());
+        assertSame(first.chunk(0), second.chunk(0), "Неизменённый блок переиспользуется");
+        assertNotSame(first.chunk(1), second.chunk(1), "Изменённый блок копируется");
+        assertSame(first.chunk(2), second.chunk(2));
+        assertEquals(0, second.x(WorldSnapshot.CHUNK_SIZE + 5));
+    }
+
+    @Test
+    void testChangedSinceSkipsSharedBlocks() {
+        int count = WorldSnapshot.CHUNK_SIZE * 2 + 10;
+        List<GameObject> objects = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            GameObject wall = new GameObject(i % 20, i / 20, null, "Wall", "wall");
+            world.add(wall);
+            objects.add(wall);
+        }
+        WorldSnapshot first = world.snapshot(1);
+
+        objects.get(7).setPosition(0, 0);
+        objects.get(WorldSnapshot.CHUNK_SIZE * 2 + 3).addProperty(ObjectProperty.WIN);
+        WorldSnapshot second = world.snapshot(2);
+
+        assertArrayEquals(new int[]{7, WorldSnapshot.CHUNK_SIZE * 2 + 3}, second.changedSince(first));
+        assertArrayEquals(new int[0], second.changedSince(second));
+
+        world.add(new GameObject(0, 0, null, "Box", "box"));
+        assertNull(world.snapshot(3).changedSince(second), "Изменился состав мира - дельты нет");
+    }
+
+    @Test
+    void testDetachedObjectsKeepSnapshotState() {
+        GameObject box = new GameObject(1, 1, null, "Box", "box");
+        box.addProperty(ObjectProperty.PUSHABLE);
+        world.add(box);
+        WorldSnapshot snapshot = world.snapshot(1);
+
+        box.setPosition(5, 5);
+        box.addProperty(ObjectProperty.WIN);
+        GameObject copy = snapshot.detachedObjects().get(0);
+
+        assertArrayEquals(new int[]{1, 1}, copy.getPosition());
+        assertTrue(copy.hasProperty(ObjectProperty.PUSHABLE));
+        assertFalse(copy.hasProperty(ObjectProperty.WIN));
+        assertEquals("box", copy.getType());
+        assertFalse(copy.isAttached(), "Копию можно добавить в другой мир");
+    }
+}
@@ -0,0 +1,151 @@
+package gui.system.saving;
+
+import game.model.GameObject;
+import game.model.GameState;
+import game.model.ObjectProperty;
+import game.model.WorldSnapshot;
+import game.model.WorldStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutosaverTest {
+
+    @TempDir
+    Path dir;
+
+    private final WorldStore world = new WorldStore();
+    private final AtomicReference<WorldSnapshot> current = new AtomicReference<>();
+    private final List<GameObject> walls = new ArrayList<>();
+    private Autosaver autosaver;
+    private long version = 0;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 1000; i++) {
+            GameObject wall = new GameObject(i % 40, i / 40, null, "Wall", "wall");
+            wall.addProperty(ObjectProperty.STOP);
+            world.add(wall);
+            walls.add(wall);
+        }
+        autosaver = new Autosaver(current::get, dir);
+    }
+
+    @Test
+    void testDeltaHoldsOnlyMovedObjects() throws IOException {
+        checkpoint();
+        Path delta = dir.resolve("autosave-0.delta");
+        long headerSize = Files.size(delta);
+
+        walls.get(3).setPosition(39, 39);
+        walls.get(700).addProperty(ObjectProperty.WIN);
+        checkpoint();
+
+        assertEquals(List.of("autosave-0.delta", "autosave-0.sav"), files());
+        assertTrue(Files.size(delta) - headerSize < 32,
+                "Изменения двух объектов занимают десятки байт, а не весь мир");
+
+        List<GameObject> restored = Autosaver.readLatest(dir).getGameObjects();
+        assertEquals(1000, restored.size());
+        assertArrayEquals(new int[]{39, 39}, restored.get(3).getPosition());
+        assertTrue(restored.get(700).hasProperty(ObjectProperty.WIN));
+        assertArrayEquals(new int[]{5, 0}, restored.get(5).getPosition());
+    }
+
+    @Test
+    void testUnchangedWorldWritesNothing() throws IOException {
+        checkpoint();
+        long size = Files.size(dir.resolve("autosave-0.delta"));
+        checkpoint();
+        assertEquals(size, Files.size(dir.resolve("autosave-0.delta")));
+    }
+
+    @Test
+    void testTornRecordIsIgnored() throws IOException {
+        checkpoint();
+        walls.get(1).setPosition(30, 30);
+        checkpoint();
+        walls.get(2).setPosition(31, 31);
+        checkpoint();
+
+        Path delta = dir.resolve("autosave-0.delta");
+        byte[] bytes = Files.readAllBytes(delta);
+        Files.write(delta, java.util.Arrays.copyOf(bytes, bytes.length - 1));
+
+        List<GameObject> restored = Autosaver.readLatest(dir).getGameObjects();
+        assertArrayEquals(new int[]{30, 30}, restored.get(1).getPosition());
+        assertArrayEquals(new int[]{2, 0}, restored.get(2).getPosition(), "Оборванная запись не применяется");
+    }
+
+    @Test
+    void testTornJournalHeaderRestoresBase() throws IOException {
+        checkpoint();
+        walls.get(1).setPosition(30, 30);
+        checkpoint();
+
+        Path delta = dir.resolve("autosave-0.delta");
+        byte[] bytes = Files.readAllBytes(delta);
+        Files.write(delta, java.util.Arrays.copyOf(bytes, 7));
+
+        List<GameObject> restored = Autosaver.readLatest(dir).getGameObjects();
+        assertEquals(1000, restored.size());
+        assertArrayEquals(new int[]{1, 0}, restored.get(1).getPosition(), "Без заголовка журнала остаётся база");
+    }
+
+    @Test
+    void testAddedObjectStartsNewGeneration() throws IOException {
+        checkpoint();
+        world.add(new GameObject(0, 0, null, "Robot", "robot"));
+        checkpoint();
+
+        assertEquals(List.of("autosave-1.delta", "autosave-1.sav"), files());
+        GameState state = Autosaver.readLatest(dir);
+        assertEquals(1001, state.getGameObjects().size());
+        assertEquals("robot", state.getGameObjects().get(1000).getType());
+    }
+
+    @Test
+    void testLongDeltaIsCompactedIntoNewBase() throws IOException {
+        checkpoint();
+        // Каждый шаг двигает все стены, дельты быстро перерастают базу
+        for (int step = 1; step <= 3; step++) {
+            for (GameObject wall : walls) {
+                wall.setPosition(wall.getX(), wall.getY() + 1);
+            }
+            checkpoint();
+        }
+
+        assertTrue(files().stream().noneMatch(name -> name.startsWith("autosave-0.")),
+                "Старое поколение удаляется после уплотнения");
+        List<GameObject> restored = Autosaver.readLatest(dir).getGameObjects();
+        assertArrayEquals(new int[]{0, 3}, restored.get(0).getPosition());
+        assertArrayEquals(new int[]{39, 27}, restored.get(999).getPosition());
+    }
+
+    @Test
+    void testNoAutosaveReturnsNull() throws IOException {
+        assertNull(Autosaver.readLatest(dir));
+    }
+
+    private void checkpoint() throws IOException {
+        current.set(world.snapshot(++version));
+        autosaver.checkpoint();
+    }
+
+    private List<String> files() throws IOException {
+        try (Stream<Path> stream = Files.list(dir)) {
+            return stream.map(path -> path.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package gui.system.saving;
+
+import game.engine.GridDimensions;
+import game.mechanic.MovementHandler;
+import game.model.GameObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameSaverTest {
+
+    @TempDir
+    Path home;
+
+    private String originalUserHome;
+
+    @BeforeEach
+    void setUp() {
+        originalUserHome = System.getProperty("user.home");
+        System.setProperty("user.home", home.toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.setProperty("user.home", originalUserHome);
+    }
+
+    @Test
+    void testAsyncSaveReplacesPreviousSaveAndLeavesNoTempFiles() throws Exception {
+        String first = GameSaver.saveGameState(List.of(new GameObject(1, 1, null, "Box", "box")), "slot");
+        assertNotNull(first);
+
+        MovementHandler handler = new MovementHandler(GridDimensions.of(10, 10));
+        handler.addGameObject(new GameObject(3, 4, null, "Robot", "robot"));
+        handler.addGameObject(new GameObject(5, 6, null, "Wall", "wall"));
+        String second = GameSaver.saveGameStateAsync(handler.getSnapshot(), "slot")
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(first, second);
+        List<GameObject> loaded = GameLoader.readGameState(Paths.get(second)).getGameObjects();
+        assertEquals(2, loaded.size());
+        assertEquals("robot", loaded.get(0).getType());
+        try (Stream<Path> files = Files.list(home.resolve(GameSaver.SAVE_DIR))) {
+            assertEquals(List.of("slot.sav"), files.map(path -> path.getFileName().toString()).toList(),
+                    "Временный файл переименован в сохранение");
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package gui.system.saving;
+
+import game.model.GameObject;
+import game.model.GameState;
+import game.model.ObjectProperty;
+import game.model.formula.FormulaElement;
+import game.model.formula.FormulaElementFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaveFormatTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testObjectsAndFormulasSurviveRoundTrip() throws Exception {
+        GameObject robot = new GameObject(2, 3, null, "Robot", "robot");
+        robot.addProperty(ObjectProperty.PLAYER);
+        GameObject wall = new GameObject(4, 5, "missing-texture.png", "Стена", "wall");
+        wall.addProperty(ObjectProperty.STOP);
+        FormulaElement noun = FormulaElementFactory.createNoun(0, 0, "ROBOT");
+        FormulaElement property = FormulaElementFactory.createProperty(2, 0, ObjectProperty.WIN);
+
+        Path path = directory.resolve("round.sav");
+        SaveFormat.write(path, List.of(robot, wall, noun, property), "round.sav");
+
+        assertTrue(SaveFormat.isBinary(path));
+        GameState state = GameLoader.readGameState(path);
+        assertEquals("round.sav", state.getSaveName());
+        List<GameObject> loaded = state.getGameObjects();
+        assertEquals(4, loaded.size());
+
+        assertArrayEquals(new int[]{2, 3}, loaded.get(0).getPosition());
+        assertEquals("robot", loaded.get(0).getType());
+        assertEquals(ObjectProperty.PLAYER.bit(), loaded.get(0).getPropertyMask());
+        assertEquals("Стена", loaded.get(1).getLabel());
+        assertEquals("missing-texture.png", loaded.get(1).getTexturePath());
+        assertTrue(loaded.get(1).hasProperty(ObjectProperty.STOP));
+
+        FormulaElement loadedNoun = (FormulaElement) loaded.get(2);
+        assertEquals(FormulaElement.ElementType.NOUN, loadedNoun.getElementType());
+        assertEquals("ROBOT", loadedNoun.getValue());
+        assertEquals(noun.getBackgroundColor(), loadedNoun.getBackgroundColor());
+        assertTrue(loadedNoun.hasProperty(ObjectProperty.PUSHABLE));
+        FormulaElement loadedProperty = (FormulaElement) loaded.get(3);
+        assertEquals(ObjectProperty.WIN, loadedProperty.getCorrespondingProperty());
+    }
+
+    @Test
+    void testBinarySaveIsTenTimesSmallerThanSerialized() throws IOException {
+        ArrayList<GameObject> objects = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            GameObject wall = new GameObject(i % 50, i / 50, null, "Wall", "wall");
+            wall.addProperty(ObjectProperty.STOP);
+            objects.add(wall);
+        }
+        Path binary = directory.resolve("binary.sav");
+        SaveFormat.write(binary, objects, "binary.sav");
+        Path serialized = directory.resolve("serialized.sav");
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(serialized.toFile()))) {
+            out.writeObject(new GameState(objects, "serialized.sav"));
+        }
+
+        assertTrue(Files.size(binary) * 10 < Files.size(serialized),
+                "Двоичный формат должен быть заметно компактнее сериализации");
+    }
+
+    @Test
+    void testLegacySerializedSaveIsStillReadable() throws Exception {
+        ArrayList<GameObject> objects = new ArrayList<>();
+        objects.add(new GameObject(1, 1, null, "Box", "box"));
+        Path path = directory.resolve("legacy.sav");
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(path.toFile()))) {
+            out.writeObject(new GameState(objects, "legacy.sav"));
+        }
+
+        assertFalse(SaveFormat.isBinary(path));
+        assertEquals("box", GameLoader.readGameState(path).getGameObjects().get(0).getType());
+    }
+
+    @Test
+    void testTruncatedSaveIsReportedAsIOException() throws IOException {
+        Path path = directory.resolve("broken.sav");
+        SaveFormat.write(path, List.of(new GameObject(1, 1, null, "Box", "box")), "broken.sav");
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 5));
+
+        assertThrows(IOException.class, () -> SaveFormat.read(path));
+    }
+}
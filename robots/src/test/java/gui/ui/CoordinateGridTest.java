@@ -0,0 +1,45 @@
+package gui.ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoordinateGridTest {
+
+    private static BufferedImage render(CoordinateGrid grid, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        grid.drawBackground(g, width, height);
+        g.dispose();
+        return image;
+    }
+
+    @Test
+    void testBackgroundLayerHasGridLinesAndFill() {
+        CoordinateGrid grid = new CoordinateGrid(4, 4);
+        BufferedImage image = render(grid, 40, 40);
+
+        int cellSize = grid.getCellSize(40, 40);
+        Point start = grid.getStartCoordinates(40, 40);
+        assertEquals(Color.LIGHT_GRAY.getRGB(), image.getRGB(start.x, start.y + 1), "Линия сетки");
+        assertEquals(new Color(50, 50, 50).getRGB(),
+                image.getRGB(start.x + cellSize / 2, start.y + cellSize / 2), "Фон внутри клетки");
+    }
+
+    @Test
+    void testBackgroundLayerFollowsResize() {
+        CoordinateGrid grid = new CoordinateGrid(4, 4);
+        render(grid, 40, 40);
+
+        // После смены размера слой перестраивается под новые клетки
+        BufferedImage image = render(grid, 80, 80);
+        int cellSize = grid.getCellSize(80, 80);
+        Point start = grid.getStartCoordinates(80, 80);
+        assertNotEquals(grid.getCellSize(40, 40), cellSize);
+        assertEquals(Color.LIGHT_GRAY.getRGB(), image.getRGB(start.x + cellSize, start.y + 1));
+        assertEquals(Color.LIGHT_GRAY.getRGB(), image.getRGB(start.x + 3 * cellSize, start.y + 1));
+    }
+}
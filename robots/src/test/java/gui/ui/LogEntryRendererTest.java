@@ -0,0 +1,39 @@
+package gui.ui;
+
+import log.LogEntry;
+import log.LogLevel;
+import log.LogWindowSource;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogEntryRendererTest {
+
+    private final LogEntryRenderer renderer = new LogEntryRenderer();
+
+    private JLabel render(LogEntry entry) {
+        return (JLabel) renderer.getListCellRendererComponent(new JList<LogEntry>(), entry, 0, false, false);
+    }
+
+    @Test
+    void testErrorWithExceptionIsShownOnOneLine() {
+        LogWindowSource source = new LogWindowSource(5);
+        source.append(LogLevel.Error, "Autosave failed", new IllegalStateException("disk <full>"));
+        LogEntry entry = source.get(0);
+        assertTrue(entry.getMessage().contains("at gui.ui.LogEntryRendererTest"), "Стек остаётся в сообщении");
+
+        JLabel label = render(entry);
+        assertEquals("Autosave failed: java.lang.IllegalStateException: disk <full>", label.getText());
+        assertTrue(label.getToolTipText().contains("at gui.ui.LogEntryRendererTest"));
+        assertTrue(label.getToolTipText().contains("disk &lt;full&gt;"));
+    }
+
+    @Test
+    void testSingleLineMessageHasNoTooltip() {
+        JLabel label = render(new LogEntry(LogLevel.Info, "Robot moved"));
+        assertEquals("Robot moved", label.getText());
+        assertNull(label.getToolTipText());
+    }
+}
@@ -0,0 +1,72 @@
+package gui.ui;
+
+import log.LogLevel;
+import log.LogWindowSource;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogListModelTest {
+
+    @Test
+    void testRowsAreReadFromSourceWithoutCopying() {
+        LogWindowSource source = new LogWindowSource(1000);
+        for (int i = 0; i < 600; i++) {
+            source.append(LogLevel.Info, "Message " + i);
+        }
+        LogListModel model = new LogListModel(source);
+        model.refresh();
+
+        assertEquals(600, model.getSize());
+        assertEquals("Message 0", model.getElementAt(0).getMessage());
+        assertEquals("Message 599", model.getElementAt(599).getMessage());
+        assertEquals("Message 300", model.getElementAt(300).getMessage());
+    }
+
+    @Test
+    void testRefreshReportsOnlyEvictedAndAddedRows() {
+        LogWindowSource source = new LogWindowSource(5);
+        for (int i = 0; i < 3; i++) {
+            source.append(LogLevel.Info, "Message " + i);
+        }
+        LogListModel model = new LogListModel(source);
+        model.refresh();
+
+        List<String> events = new ArrayList<>();
+        model.addListDataListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                events.add("added " + e.getIndex0() + "-" + e.getIndex1());
+            }
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                events.add("removed " + e.getIndex0() + "-" + e.getIndex1());
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+                events.add("changed");
+            }
+        });
+
+        source.append(LogLevel.Info, "Message 3");
+        source.append(LogLevel.Info, "Message 4");
+        source.append(LogLevel.Info, "Message 5");
+        model.refresh();
+
+        assertEquals(List.of("removed 0-0", "added 2-4"), events);
+        assertEquals(5, model.getSize());
+        assertEquals("Message 1", model.getElementAt(0).getMessage());
+        assertEquals("Message 5", model.getElementAt(4).getMessage());
+
+        source.clear();
+        model.refresh();
+        assertEquals(0, model.getSize());
+    }
+}
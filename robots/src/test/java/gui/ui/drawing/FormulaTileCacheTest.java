@@ -0,0 +1,47 @@
+package gui.ui.drawing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FormulaTileCacheTest {
+
+    private final FormulaTileCache cache = FormulaTileCache.getInstance();
+    private Graphics2D g;
+
+    @BeforeEach
+    void setUp() {
+        cache.clear();
+        g = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB).createGraphics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        g.dispose();
+        cache.clear();
+    }
+
+    @Test
+    void testSameWordSharesOneTile() {
+        BufferedImage first = cache.getTile(g, "wall", Color.BLUE, 32, 32);
+        assertSame(first, cache.getTile(g, "wall", Color.BLUE, 32, 32));
+        assertNotSame(first, cache.getTile(g, "flag", Color.BLUE, 32, 32), "Другое слово - другая плитка");
+        assertNotSame(first, cache.getTile(g, "wall", Color.RED, 32, 32), "Другой цвет - другая плитка");
+    }
+
+    @Test
+    void testTileIsRedrawnForNewCellSize() {
+        BufferedImage small = cache.getTile(g, "is", Color.GRAY, 20, 20);
+        BufferedImage large = cache.getTile(g, "is", Color.GRAY, 40, 40);
+
+        assertNotSame(small, large);
+        assertEquals(41, large.getWidth(), "Рамка рисуется по внешнему краю плитки");
+        assertEquals(Color.BLACK.getRGB(), large.getRGB(0, 20));
+        assertEquals(Color.GRAY.getRGB(), large.getRGB(2, 2));
+    }
+}
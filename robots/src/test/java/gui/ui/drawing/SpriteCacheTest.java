@@ -0,0 +1,54 @@
+package gui.ui.drawing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpriteCacheTest {
+
+    private final SpriteCache cache = SpriteCache.getInstance();
+    private Graphics2D g;
+
+    @BeforeEach
+    void setUp() {
+        cache.clear();
+        g = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB).createGraphics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        g.dispose();
+        cache.clear();
+    }
+
+    @Test
+    void testTextureIsScaledOncePerSize() {
+        Image texture = new BufferedImage(256, 256, BufferedImage.TYPE_INT_ARGB);
+
+        Image first = cache.getScaled(g, texture, 30, 30);
+        assertEquals(30, first.getWidth(null));
+        assertEquals(30, first.getHeight(null));
+        assertSame(first, cache.getScaled(g, texture, 30, 30), "Повторный кадр использует готовый спрайт");
+
+        Image resized = cache.getScaled(g, texture, 40, 40);
+        assertNotSame(first, resized, "После смены размера клетки спрайт строится заново");
+        assertEquals(40, resized.getWidth(null));
+    }
+
+    @Test
+    void testScaledSpriteKeepsColours() {
+        BufferedImage texture = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D tg = texture.createGraphics();
+        tg.setColor(Color.RED);
+        tg.fillRect(0, 0, 64, 64);
+        tg.dispose();
+
+        BufferedImage sprite = (BufferedImage) cache.getScaled(g, texture, 16, 16);
+        assertEquals(Color.RED.getRGB(), sprite.getRGB(8, 8));
+    }
+}
@@ -0,0 +1,155 @@
+package log;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testEntriesSurviveReopening() throws IOException {
+        LogJournal journal = new LogJournal(directory, 4096, 4);
+        journal.append(new LogEntry(LogLevel.Info, "Робот сделал шаг", LogEntry.NO_ARGUMENTS, 0, 1000L, "main"));
+        journal.append(new LogEntry(LogLevel.Error, "Robot is {}", new Object[]{"dead"}, 1, 2000L, "main"));
+        journal.close();
+
+        LogJournal reopened = new LogJournal(directory, 4096, 4);
+        assertEquals(2, reopened.getNextSequence(), "Нумерация продолжается с прошлой сессии");
+        List<LogEntry> entries = reopened.read(0, 10);
+        assertEquals(2, entries.size());
+        assertEquals("Робот сделал шаг", entries.get(0).getMessage());
+        assertEquals(LogLevel.Error, entries.get(1).getLevel());
+        assertEquals("Robot is dead", entries.get(1).getMessage());
+        assertEquals(2000L, entries.get(1).getTimestamp());
+        assertEquals(1, entries.get(1).getSequence());
+        reopened.close();
+    }
+
+    @Test
+    void testSegmentsRollAndOldestAreDropped() throws IOException {
+        LogJournal journal = new LogJournal(directory, 512, 3);
+        for (int i = 0; i < 200; i++) {
+            journal.append(new LogEntry(LogLevel.Debug, "Message number " + i, i));
+        }
+
+        long first = journal.getFirstSequence();
+        assertTrue(first > 0, "Старые сегменты удаляются");
+        assertTrue(journal.read(0, (int) first).isEmpty());
+
+        List<LogEntry> tail = journal.read(first, 1000);
+        assertEquals(200 - first, tail.size());
+        for (int i = 0; i < tail.size(); i++) {
+            assertEquals(first + i, tail.get(i).getSequence());
+            assertEquals("Message number " + (first + i), tail.get(i).getMessage());
+        }
+        assertEquals("Message number " + (first + 5), journal.read(first + 5, 1).get(0).getMessage());
+        journal.close();
+
+        // close() дожидается удаления вытесненных сегментов; остаются 3 и, может быть, подготовленный
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.count() <= 4, "Файлы вытесненных сегментов удалены");
+        }
+    }
+
+    @Test
+    void testOfferedEntriesAreWrittenInSequenceOrder() throws IOException {
+        LogJournal journal = new LogJournal(directory, 4096, 4);
+        journal.offer(new LogEntry(LogLevel.Info, "second", 1));
+        assertTrue(journal.read(0, 10).isEmpty(), "Запись после пропуска ждёт предыдущую");
+        journal.offer(new LogEntry(LogLevel.Info, "first", 0));
+        journal.close();
+
+        LogJournal reopened = new LogJournal(directory, 4096, 4);
+        List<LogEntry> entries = reopened.read(0, 10);
+        assertEquals(2, entries.size());
+        assertEquals("first", entries.get(0).getMessage());
+        assertEquals("second", entries.get(1).getMessage());
+        reopened.close();
+    }
+
+    @Test
+    void testEntriesOfferedAfterCloseRollSegmentsAndStayReadable() throws IOException {
+        LogJournal journal = new LogJournal(directory, 512, 3);
+        journal.close();
+        // Записи после закрытия переключают сегменты уже без фонового потока
+        for (int i = 0; i < 100; i++) {
+            journal.offer(new LogEntry(LogLevel.Debug, "Message number " + i, i));
+        }
+
+        assertEquals(100, journal.getNextSequence(), "Ни одна запись не потеряна");
+        long first = journal.getFirstSequence();
+        assertTrue(first > 0, "Старые сегменты удаляются и после закрытия");
+        List<LogEntry> tail = journal.read(first, 100);
+        assertEquals(100 - first, tail.size());
+        for (int i = 0; i < tail.size(); i++) {
+            assertEquals("Message number " + (first + i), tail.get(i).getMessage());
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(3, files.count());
+        }
+    }
+
+    @Test
+    void testConcurrentWritersReachJournalInOrder() throws Exception {
+        LogJournal journal = new LogJournal(directory, 4096, 64);
+        LogWindowSource source = new LogWindowSource(5, 0, journal);
+        int numThreads = 4;
+        int messagesPerThread = 500;
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < messagesPerThread; j++) {
+                    source.append(LogLevel.Info, "message");
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Ещё не записанные на диск записи читаются из очереди журнала
+        List<LogEntry> history = new ArrayList<>();
+        source.range(0, numThreads * messagesPerThread).forEach(history::add);
+        assertEquals(numThreads * messagesPerThread, history.size());
+        for (int i = 0; i < history.size(); i++) {
+            assertEquals(i, history.get(i).getSequence());
+        }
+        journal.close();
+
+        LogJournal reopened = new LogJournal(directory, 4096, 64);
+        assertEquals(numThreads * messagesPerThread, reopened.getNextSequence());
+        reopened.close();
+    }
+
+    @Test
+    void testSourcePagesBackIntoJournal() throws IOException {
+        LogJournal journal = new LogJournal(directory, 4096, 4);
+        LogWindowSource source = new LogWindowSource(5, 0, journal);
+        for (int i = 0; i < 20; i++) {
+            source.append(LogLevel.Info, "Message " + i);
+        }
+
+        assertEquals(20, source.size(), "Размер включает историю журнала");
+        List<String> firstPage = new ArrayList<>();
+        source.range(0, 3).forEach(entry -> firstPage.add(entry.getMessage()));
+        assertEquals(List.of("Message 0", "Message 1", "Message 2"), firstPage);
+        assertEquals("Message 7", source.get(7).getMessage());
+
+        List<String> inMemory = new ArrayList<>();
+        source.all().forEach(entry -> inMemory.add(entry.getMessage()));
+        assertEquals(List.of("Message 15", "Message 16", "Message 17", "Message 18", "Message 19"), inMemory);
+        journal.close();
+    }
+}
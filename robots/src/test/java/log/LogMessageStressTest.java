@@ -8,6 +8,7 @@ import javax.swing.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class LogMessageStressTest {
 
@@ -41,7 +42,12 @@ public class LogMessageStressTest {
             }
 
             AtomicInteger notificationCounter = new AtomicInteger(0);
-            LogChangeListener countingListener = notificationCounter::incrementAndGet;
+            // Конец лога, который видел слушатель при последнем уведомлении
+            AtomicLong notifiedEnd = new AtomicLong(-1);
+            LogChangeListener countingListener = () -> {
+                notificationCounter.incrementAndGet();
+                notifiedEnd.accumulateAndGet(logSource.getFirstSequence() + logSource.size(), Math::max);
+            };
             logSource.registerListener(countingListener);
 
             System.gc();
@@ -62,6 +68,7 @@ public class LogMessageStressTest {
                 Thread.sleep(500);
                 memoryReadings.add(getUsedMemory(runtime));
             }
+            long loggedEnd = logSource.getFirstSequence() + logSource.size();
 
             for (LogWindow window : windows) {
                 window.dispose();
@@ -81,8 +88,11 @@ public class LogMessageStressTest {
             double memoryRatio = (double) finalMemory / baselineMemory;
             boolean significantResidualMemory = memoryRatio > 1.5;
 
-            int expectedNotifications = PHASE_COUNT * MESSAGE_COUNT;
-            boolean notificationsMatch = notificationCounter.get() >= expectedNotifications;
+            // Уведомления объединяются: каждое сообщение должно попасть в какое-то уведомление,
+            // но самих уведомлений гораздо меньше, чем сообщений
+            int messageCount = PHASE_COUNT * MESSAGE_COUNT;
+            boolean notificationsMatch = notifiedEnd.get() >= loggedEnd
+                    && notificationCounter.get() < messageCount / 10;
 
             Assert.assertFalse("Memory leak pattern detected in log message handling", leakDetected);
             Assert.assertFalse("Significant memory not released after test", significantResidualMemory);
@@ -1,7 +1,7 @@
 package log;
 
-import org.junit.Before;
-import org.junit.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -12,26 +12,26 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import static org.junit.Assert.*;
+import static org.junit.jupiter.api.Assertions.*;
 
-public class LogWindowSourceTest {
+class LogWindowSourceTest {
 
     private LogWindowSource logSource;
     private static final int QUEUE_LENGTH = 5;
 
-    @Before
-    public void setUp() {
+    @BeforeEach
+    void setUp() {
         logSource = new LogWindowSource(QUEUE_LENGTH);
     }
 
     @Test
-    public void testInitiallyEmpty() {
+    void testInitiallyEmpty() {
         assertEquals(0, logSource.size());
         assertTrue(logSource.all().iterator().hasNext() == false);
     }
 
     @Test
-    public void testAppendAndRetrieveSingleMessage() {
+    void testAppendAndRetrieveSingleMessage() {
         String testMessage = "Test message";
         logSource.append(LogLevel.Debug, testMessage);
 
@@ -46,7 +46,7 @@ public class LogWindowSourceTest {
     }
 
     @Test
-    public void testQueueLimitEnforcement() {
+    void testQueueLimitEnforcement() {
         // Add more messages than queue can hold
         for (int i = 0; i < QUEUE_LENGTH + 3; i++) {
             logSource.append(LogLevel.Debug, "Message " + i);
@@ -61,7 +61,7 @@ public class LogWindowSourceTest {
     }
 
     @Test
-    public void testRangeRetrieval() {
+    void testRangeRetrieval() {
         // Add 5 messages
         for (int i = 0; i < 5; i++) {
             logSource.append(LogLevel.Debug, "Message " + i);
@@ -78,7 +78,7 @@ public class LogWindowSourceTest {
     }
 
     @Test
-    public void testInvalidRanges() {
+    void testInvalidRanges() {
         // Add a few messages
         logSource.append(LogLevel.Debug, "Message 1");
         logSource.append(LogLevel.Debug, "Message 2");
@@ -91,7 +91,7 @@ public class LogWindowSourceTest {
     }
 
     @Test
-    public void testClearMethod() {
+    void testClearMethod() {
         // Add a few messages
         logSource.append(LogLevel.Debug, "Message 1");
         logSource.append(LogLevel.Debug, "Message 2");
@@ -104,7 +104,7 @@ public class LogWindowSourceTest {
     }
 
     @Test
-    public void testRegisterAndUnregisterListener() {
+    void testRegisterAndUnregisterListener() {
         final AtomicInteger notificationCount = new AtomicInteger(0);
 
         LogChangeListener listener = () -> notificationCount.incrementAndGet();
@@ -125,7 +125,7 @@ public class LogWindowSourceTest {
     }
 
     @Test
-    public void testMultipleListeners() {
+    void testMultipleListeners() {
         final AtomicInteger listenerCount1 = new AtomicInteger(0);
         final AtomicInteger listenerCount2 = new AtomicInteger(0);
 
@@ -142,7 +142,7 @@ public class LogWindowSourceTest {
     }
 
     @Test
-    public void testConcurrentAccess() throws InterruptedException {
+    void testConcurrentAccess() throws InterruptedException {
         int numThreads = 10;
         int messagesPerThread = 100;
         ExecutorService executor = Executors.newFixedThreadPool(numThreads);
@@ -169,7 +169,215 @@ public class LogWindowSourceTest {
     }
 
     @Test
-    public void testDefensiveCopying() {
+    void testRandomAccessByIndex() {
+        for (int i = 0; i < QUEUE_LENGTH + 2; i++) {
+            logSource.append(LogLevel.Debug, "Message " + i);
+        }
+
+        assertEquals("Message 2", logSource.get(0).getMessage());
+        assertEquals("Message 6", logSource.get(QUEUE_LENGTH - 1).getMessage());
+        assertNull(logSource.get(QUEUE_LENGTH));
+        assertNull(logSource.get(-1));
+        assertEquals(logSource.get(0).getSequence() + 1, logSource.get(1).getSequence());
+    }
+
+    @Test
+    void testConcurrentAppendKeepsNewestEntriesInOrder() throws InterruptedException {
+        int numThreads = 8;
+        int messagesPerThread = 1000;
+        Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < messagesPerThread; j++) {
+                    logSource.append(LogLevel.Debug, "message " + j);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        List<LogEntry> entries = new ArrayList<>();
+        logSource.all().forEach(entries::add);
+        assertEquals(QUEUE_LENGTH, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(numThreads * messagesPerThread - QUEUE_LENGTH + i, entries.get(i).getSequence());
+        }
+    }
+
+    @Test
+    void testLappedWriterDoesNotOverwriteNewerEntry() {
+        // Писатель получил номер и задержался, пока остальные прошли полный круг
+        LogEntry stalled = logSource.claim(LogLevel.Debug, "stalled", LogEntry.NO_ARGUMENTS);
+        for (int i = 1; i <= QUEUE_LENGTH; i++) {
+            logSource.append(LogLevel.Debug, "Message " + i);
+        }
+        logSource.publish(stalled);
+
+        List<LogEntry> entries = new ArrayList<>();
+        logSource.all().forEach(entries::add);
+        assertEquals(QUEUE_LENGTH, entries.size());
+        for (int i = 0; i < QUEUE_LENGTH; i++) {
+            assertEquals("Message " + (i + 1), entries.get(i).getMessage());
+        }
+        assertNull(logSource.entryAt(stalled.getSequence()));
+    }
+
+    @Test
+    void testConcurrentWritersWrappingTheRingNeverLoseNewestEntries() throws InterruptedException {
+        int numThreads = 8;
+        int rounds = 200;
+        for (int round = 0; round < rounds; round++) {
+            Thread[] threads = new Thread[numThreads];
+            for (int i = 0; i < numThreads; i++) {
+                threads[i] = new Thread(() -> {
+                    for (int j = 0; j < QUEUE_LENGTH * 3; j++) {
+                        logSource.append(LogLevel.Debug, "message");
+                        Thread.yield();
+                    }
+                });
+                threads[i].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            long next = logSource.getFirstSequence() + logSource.size();
+            for (int i = 0; i < QUEUE_LENGTH; i++) {
+                LogEntry entry = logSource.get(i);
+                assertNotNull(entry, "Ячейка " + i + " потеряна в раунде " + round);
+                assertEquals(next - QUEUE_LENGTH + i, entry.getSequence());
+            }
+        }
+    }
+
+    @Test
+    void testEntriesSinceReturnsOnlyNewEntries() {
+        for (int i = 0; i < 3; i++) {
+            logSource.append(LogLevel.Info, "Message " + i);
+        }
+        List<LogEntry> first = logSource.entriesSince(0);
+        assertEquals(3, first.size());
+        long next = first.get(2).getSequence() + 1;
+
+        for (int i = 3; i < 9; i++) {
+            logSource.append(LogLevel.Info, "Message " + i);
+        }
+        List<LogEntry> added = logSource.entriesSince(next);
+        assertEquals(QUEUE_LENGTH, added.size(), "Вытесненные записи пропускаются");
+        assertEquals("Message 4", added.get(0).getMessage());
+        assertEquals(added.get(0).getSequence(), logSource.getFirstSequence());
+        assertTrue(logSource.entriesSince(added.get(QUEUE_LENGTH - 1).getSequence() + 1).isEmpty());
+    }
+
+    @Test
+    void testMinLevelDropsEntriesAndCountsLevels() {
+        logSource.setMinLevel(LogLevel.Info);
+        logSource.append(LogLevel.Trace, "Trace message");
+        logSource.append(LogLevel.Debug, "Debug message");
+        logSource.append(LogLevel.Info, "Info message");
+        logSource.append(LogLevel.Error, "Error message");
+        logSource.append(LogLevel.Error, "Another error");
+
+        assertEquals(3, logSource.size());
+        assertFalse(logSource.isEnabled(LogLevel.Debug));
+        assertTrue(logSource.isEnabled(LogLevel.Fatal));
+        assertEquals(1, logSource.getFilteredCount(LogLevel.Trace));
+        assertEquals(1, logSource.getFilteredCount(LogLevel.Debug));
+        assertEquals(0, logSource.getAcceptedCount(LogLevel.Debug));
+        assertEquals(2, logSource.getAcceptedCount(LogLevel.Error));
+    }
+
+    @Test
+    void testSearchFindsStoredEntriesContainingAllWords() {
+        logSource.append(LogLevel.Info, "Robot moved left");
+        logSource.append(LogLevel.Info, "Box moved right");
+        logSource.append(LogLevel.Error, "Robot is dead");
+
+        List<LogEntry> found = logSource.search("robot");
+        assertEquals(2, found.size());
+        assertEquals("Robot moved left", found.get(0).getMessage());
+        assertEquals(1, logSource.search("MOVED robot").size());
+        assertTrue(logSource.search("robot jumped").isEmpty());
+        assertTrue(logSource.search("  ").isEmpty());
+
+        for (int i = 0; i < QUEUE_LENGTH; i++) {
+            logSource.append(LogLevel.Info, "Filler " + i);
+        }
+        logSource.append(LogLevel.Info, "Robot moved again");
+        found = logSource.search("robot moved");
+        assertEquals(1, found.size(), "Вытесненные записи не находятся");
+        assertEquals("Robot moved again", found.get(0).getMessage());
+    }
+
+    @Test
+    void testTemplateIsFormattedOnlyWhenRead() {
+        AtomicInteger formatted = new AtomicInteger();
+        Object argument = new Object() {
+            @Override
+            public String toString() {
+                formatted.incrementAndGet();
+                return "R1";
+            }
+        };
+        logSource.setMinLevel(LogLevel.Debug);
+        logSource.append(LogLevel.Trace, "Filtered {}", argument);
+        logSource.append(LogLevel.Info, "Robot {} at ({}, {})", argument, 3, 4);
+
+        LogEntry entry = logSource.get(0);
+        assertEquals(1, logSource.size());
+        assertEquals(0, formatted.get());
+        assertEquals("Robot {} at ({}, {})", entry.getTemplate());
+        assertArrayEquals(new Object[]{argument, 3, 4}, entry.getArguments());
+        assertEquals(Thread.currentThread().getName(), entry.getThreadName());
+        assertTrue(entry.getTimestamp() > 0);
+
+        assertEquals("Robot R1 at (3, 4)", entry.getMessage());
+        assertEquals("Robot R1 at (3, 4)", entry.getMessage());
+        assertEquals(1, formatted.get(), "Сообщение собирается один раз");
+    }
+
+    @Test
+    void testFormatHandlesMissingAndExtraArguments() {
+        assertEquals("a 1 {}", LogEntry.format("a {} {}", new Object[]{1}));
+        assertEquals("a 1", LogEntry.format("a {}", new Object[]{1, 2}));
+        assertEquals("null!", LogEntry.format("{}!", new Object[]{null}));
+        String withTrace = LogEntry.format("failed {}", new Object[]{"x", new IllegalStateException("boom")});
+        assertTrue(withTrace.startsWith("failed x" + System.lineSeparator() + "java.lang.IllegalStateException: boom"));
+        assertEquals("failed java.lang.IllegalStateException: boom",
+                LogEntry.format("failed {}", new Object[]{new IllegalStateException("boom")}));
+    }
+
+    @Test
+    void testBurstIsCoalescedIntoFewAsyncNotifications() throws InterruptedException {
+        LogWindowSource coalescing = new LogWindowSource(QUEUE_LENGTH, 20);
+        AtomicInteger notifications = new AtomicInteger();
+        List<Thread> notifyingThreads = new ArrayList<>();
+        CountDownLatch notified = new CountDownLatch(1);
+        LogChangeListener listener = () -> {
+            notifications.incrementAndGet();
+            synchronized (notifyingThreads) {
+                notifyingThreads.add(Thread.currentThread());
+            }
+            notified.countDown();
+        };
+        coalescing.registerListener(listener);
+
+        for (int i = 0; i < 5000; i++) {
+            coalescing.append(LogLevel.Debug, "Message " + i);
+        }
+        assertTrue(notified.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+
+        assertTrue(notifications.get() < 50,
+                "Burst should produce a handful of notifications, got " + notifications.get());
+        synchronized (notifyingThreads) {
+            assertFalse(notifyingThreads.contains(Thread.currentThread()));
+        }
+    }
+
+    @Test
+    void testDefensiveCopying() {
         // Add messages
         logSource.append(LogLevel.Debug, "Message 1");
         logSource.append(LogLevel.Debug, "Message 2");
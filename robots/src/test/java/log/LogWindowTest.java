@@ -105,10 +105,7 @@ public class LogWindowTest {
                 isComponentInContainer(logWindow, desktop));
 
         // Check the content has been populated
-        TextArea logContent = getLogContent();
-        assertNotNull(logContent);
-
-        String content = logContent.getText();
+        String content = getLogContentText();
         assertTrue(content.contains("Initial log message 1"));
         assertTrue(content.contains("Initial error message"));
     }
@@ -125,8 +122,7 @@ public class LogWindowTest {
         waitForSwingThread();
 
         // Check the content has been updated
-        TextArea logContent = getLogContent();
-        String content = logContent.getText();
+        String content = getLogContentText();
         assertTrue(content.contains("New test message"));
     }
 
@@ -185,8 +181,7 @@ public class LogWindowTest {
         waitForSwingThread();
 
         // Get content
-        TextArea logContent = getLogContent();
-        String content = logContent.getText();
+        String content = getLogContentText();
 
         // Verify formatting
         String expected = "Debug message\nError message\n";
@@ -215,12 +210,17 @@ public class LogWindowTest {
         }
     }
 
-    // Helper method to access private TextArea field
-    private TextArea getLogContent() {
+    // Helper method to read the rows shown by the private JList field, one message per line
+    private String getLogContentText() {
         try {
             Field field = LogWindow.class.getDeclaredField("m_logContent");
             field.setAccessible(true);
-            return (TextArea) field.get(logWindow);
+            ListModel<?> model = ((JList<?>) field.get(logWindow)).getModel();
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < model.getSize(); i++) {
+                content.append(((LogEntry) model.getElementAt(i)).getMessage()).append("\n");
+            }
+            return content.toString();
         } catch (Exception e) {
             fail("Could not access m_logContent field: " + e.getMessage());
             return null;